@@ -0,0 +1,278 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+/**
+ * The BatchSorter class sorts many task files in one run, so the cost of starting the JVM and warming up the sorts is
+ * paid once instead of once per file. The files are sorted at the same time on virtual threads where the JVM has them,
+ * or on a pool of platform threads otherwise, with only a bounded number in progress at once. The results are printed
+ * in the order the files were given, or, when tagged, as soon as each one is finished, with every line starting with
+ * the path of its file and a tab.
+ *
+ * The files can be given as arguments, and a directory stands for every file in it. With no files, or with -, the paths
+ * are read from standard input one per line, and sorting starts before the list is finished.
+ *
+ * Usage: java BatchSorter [--jobs=N] [--tagged] [--mode=tarjan] [--format=text] [files, directories, or -]
+ */
+public class BatchSorter
+{
+    private final ExecutorService executor; //runs the sorts
+    private final Semaphore permits; //the number of files that may be in progress, or finished and waiting to print
+    private final boolean tagged; //whether results are printed as they finish, tagged by file
+    private final DirectedGraph.SortMode mode; //how to sort each file
+    private final ResultWriter.Format format; //how to print each result
+    private final OutputStream out; //where the results go
+    private final BlockingQueue<Future<byte[]>> pending; //the results still to print, in order, when not tagged
+    private final Thread printer; //prints the results in order, when not tagged
+
+    /**
+     * Creates a batch sorter that keeps at most the given number of files in progress.
+     */
+    public BatchSorter(int jobs, boolean tagged, DirectedGraph.SortMode mode, ResultWriter.Format format,
+            OutputStream out){
+        this.executor = newExecutor(jobs);
+        this.permits = new Semaphore(jobs);
+        this.tagged = tagged;
+        this.mode = mode;
+        this.format = format;
+        this.out = out;
+        pending = new LinkedBlockingQueue<Future<byte[]>>();
+        printer = tagged ? null : new Thread(this::printInOrder, "batch printer");
+        if(printer != null){
+            printer.start();
+        }
+    }
+
+    /**
+     * The main method reads the options and the files to sort, then sorts all of them.
+     *
+     * @param args  the options, then the files, directories, or - for standard input
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        int jobs = Math.max(4, Runtime.getRuntime().availableProcessors()*2); //files are partly spent reading
+        boolean tagged = false;
+        DirectedGraph.SortMode mode = DirectedGraph.SortMode.TARJAN;
+        ResultWriter.Format format = ResultWriter.Format.TEXT;
+        int arg = 0;
+        for(; arg<args.length && args[arg].startsWith("--"); arg++){
+            String option = args[arg];
+            String value = option.substring(option.indexOf('=')+1);
+            try{
+                if(option.startsWith("--jobs=")){
+                    jobs = Math.max(1, Integer.parseInt(value));
+                }
+                else if(option.equals("--tagged")){
+                    tagged = true;
+                }
+                else if(option.startsWith("--mode=")){
+                    mode = DirectedGraph.SortMode.valueOf(value.toUpperCase());
+                }
+                else if(option.startsWith("--format=") && TaskSorter.formatOf(value) != null){
+                    format = TaskSorter.formatOf(value);
+                }
+                else{
+                    System.out.println("Unknown option: " + option);
+                    return;
+                }
+            }
+            catch(IllegalArgumentException e){ //a number or sort mode that couldn't be read
+                System.out.println("Unknown option: " + option);
+                return;
+            }
+        }
+
+        BatchSorter batch = new BatchSorter(jobs, tagged, mode, format, new FileOutputStream(FileDescriptor.out));
+        try{
+            if(arg == args.length){
+                batch.submitFrom(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+            }
+            for(; arg<args.length; arg++){
+                if(args[arg].equals("-")){
+                    batch.submitFrom(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+                }
+                else{
+                    batch.submit(new File(args[arg]));
+                }
+            }
+        }
+        finally{ //the printer and the pool keep the JVM alive, so they are stopped even if reading the paths failed
+            batch.finish();
+        }
+    }
+
+    /**
+     * The newExecutor method returns an executor that starts a virtual thread for each task if the JVM has them, which
+     * it looks up by reflection so the class still runs on JVMs without them, and a fixed pool of the given number of
+     * platform threads otherwise.
+     */
+    private static ExecutorService newExecutor(int jobs){
+        try{
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(ReflectiveOperationException | UnsupportedOperationException e){ //no virtual threads, or not enabled
+            return Executors.newFixedThreadPool(jobs);
+        }
+    }
+
+    /**
+     * The submitFrom method submits every path read from a reader, one per line, skipping blank lines.
+     */
+    public void submitFrom(BufferedReader paths) throws IOException, InterruptedException{
+        for(String line = paths.readLine(); line != null; line = paths.readLine()){
+            if(!line.isBlank()){
+                submit(new File(line.strip()));
+            }
+        }
+    }
+
+    /**
+     * The submit method starts sorting a file, or every file in a directory in name order, waiting first if too many
+     * files are already in progress.
+     */
+    public void submit(File file) throws InterruptedException{
+        if(file.isDirectory()){
+            File[] files = file.listFiles(File::isFile);
+            if(files != null){
+                Arrays.sort(files);
+                for(File f : files){
+                    submit(f);
+                }
+            }
+            return;
+        }
+        permits.acquire();
+        Future<byte[]> result = executor.submit(() -> {
+            try{
+                byte[] bytes = sort(file);
+                if(tagged){
+                    print(file.getPath(), bytes);
+                }
+                return bytes;
+            }
+            catch(Throwable e){
+                if(tagged){ //nothing waits on the result, so the failure is reported here
+                    System.err.println("batch sort of " + file + " failed: " + e);
+                }
+                throw e;
+            }
+            finally{
+                if(tagged){ //released even if sorting or printing failed, so later files can start
+                    permits.release();
+                }
+            }
+        });
+        if(!tagged){
+            pending.put(result);
+        }
+    }
+
+    /**
+     * The finish method waits for every submitted file to be sorted and printed, then shuts the executor down. It must be
+     * called once submitting is over, even if it ended with an exception, or the printer thread keeps the JVM running.
+     */
+    public void finish() throws InterruptedException, IOException{
+        if(printer != null){
+            pending.put(executor.submit(() -> (byte[])null)); //marks the end of the results
+            printer.join();
+        }
+        executor.shutdown();
+        while(!executor.isTerminated()){
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        out.flush();
+    }
+
+    /**
+     * The sort method sorts a single file, returning what TaskSorter would print for it.
+     */
+    private byte[] sort(File file){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ResultWriter writer = ResultWriter.to(bytes, format);
+        try{
+            TaskSorter.sortFile(file, mode, writer);
+        }
+        catch(Exception e){
+            bytes.reset();
+            bytes.writeBytes("File not found.\n".getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The printInOrder method prints each result as soon as it and every result before it are finished, until the end
+     * is reached. A file whose sort failed is reported and skipped, and once printing fails the rest of the results are
+     * still waited for without being printed, so every permit is given back and finish always returns.
+     */
+    private void printInOrder(){
+        boolean printing = true; //false once writing out a result has failed
+        try{
+            while(true){
+                byte[] bytes;
+                try{
+                    bytes = pending.take().get();
+                }
+                catch(ExecutionException e){ //the sort threw an Error
+                    System.err.println("batch sort failed: " + e.getCause());
+                    permits.release();
+                    continue;
+                }
+                if(bytes == null){ //the end of the results
+                    return;
+                }
+                try{
+                    if(printing){
+                        print(null, bytes);
+                    }
+                }
+                catch(IOException e){
+                    System.err.println("batch printer stopped: " + e);
+                    printing = false;
+                }
+                finally{
+                    permits.release();
+                }
+            }
+        }
+        catch(InterruptedException e){
+            System.err.println("batch printer stopped: " + e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The print method writes out one file's result, with the tag and a tab in front of every line if there is a tag. The
+     * whole result is written at once so results never interleave.
+     */
+    private void print(String tag, byte[] bytes) throws IOException{
+        if(tag != null){
+            ByteArrayOutputStream tagged = new ByteArrayOutputStream(bytes.length*2);
+            byte[] prefix = (tag + "\t").getBytes(StandardCharsets.UTF_8);
+            int start = 0;
+            for(int i = 0; i<bytes.length; i++){
+                if(bytes[i] == '\n'){
+                    tagged.write(prefix);
+                    tagged.write(bytes, start, i+1-start);
+                    start = i+1;
+                }
+            }
+            bytes = tagged.toByteArray();
+        }
+        synchronized(out){
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import java.util.Arrays;
+/**
+ * The CompactGraph class holds a frozen directed graph as primitive int arrays in compressed sparse row form. Each vertex
+ * is an int id, each task name is stored once in an id table, which is either an array of Strings or a NameTable, and
+ * the edges leaving vertex v are the targets stored between begin(v) and end(v).
+ */
+public class CompactGraph
+{
+    public final int numVertices; //the number of vertices in the graph
+    public final int numEdges; //the number of edges in the graph
+    private final String[] names; //the task name of each vertex id, or null if the names are in a table
+    private final NameTable table; //the task names as UTF-8 bytes, or null if they are in an array
+    private final int[] offsets; //where each vertex's edges start in the targets array, with one extra entry at the end
+    private final int[] targets; //the vertex at the end of each edge, grouped by starting vertex
+
+    /**
+     * Creates a compact graph out of an id table and the offset and target arrays that describe its edges.
+     */
+    public CompactGraph(String[] names, int[] offsets, int[] targets){
+        this(names, null, offsets, targets);
+    }
+
+    /**
+     * Creates a compact graph out of a table of names and the offset and target arrays that describe its edges. The
+     * table is shared, not copied.
+     */
+    public CompactGraph(NameTable table, int[] offsets, int[] targets){
+        this(null, table, offsets, targets);
+    }
+
+    private CompactGraph(String[] names, NameTable table, int[] offsets, int[] targets){
+        this.names = names;
+        this.table = table;
+        this.offsets = offsets;
+        this.targets = targets;
+        numVertices = offsets.length-1;
+        numEdges = offsets[numVertices];
+    }
+
+    /**
+     * Creates a compact graph of the given size whose arrays are held somewhere else, for a subclass that overrides the
+     * accessor methods to read them.
+     */
+    protected CompactGraph(int numVertices, int numEdges){
+        this.numVertices = numVertices;
+        this.numEdges = numEdges;
+        names = null;
+        table = null;
+        offsets = null;
+        targets = null;
+    }
+
+    /**
+     * The build method packs a list of edges into a compact graph. Edges leaving the same vertex keep the order they
+     * were given in.
+     *
+     * @param names     the task name of each vertex id
+     * @param from      the starting vertex of each edge
+     * @param to        the ending vertex of each edge
+     * @param m         the number of edges
+     * @return          the compact graph
+     */
+    public static CompactGraph build(String[] names, int[] from, int[] to, int m){
+        return build(names, null, names.length, from, to, m);
+    }
+
+    /**
+     * The build method packs a list of edges into a compact graph whose task names are kept in a table, which is shared
+     * with the graph rather than copied.
+     *
+     * @param table     the task names, numbered by vertex id
+     * @param from      the starting vertex of each edge
+     * @param to        the ending vertex of each edge
+     * @param m         the number of edges
+     * @return          the compact graph
+     */
+    public static CompactGraph build(NameTable table, int[] from, int[] to, int m){
+        return build(null, table, table.size(), from, to, m);
+    }
+
+    private static CompactGraph build(String[] names, NameTable table, int n, int[] from, int[] to, int m){
+        int[] offsets = new int[n+1];
+        for(int e = 0; e<m; e++){ //count the edges leaving each vertex
+            offsets[from[e]+1]++;
+        }
+        for(int v = 0; v<n; v++){
+            offsets[v+1] += offsets[v];
+        }
+
+        int[] next = Arrays.copyOf(offsets, n); //the next free spot in each vertex's group of edges
+        int[] targets = new int[m];
+        for(int e = 0; e<m; e++){
+            targets[next[from[e]]++] = to[e];
+        }
+        return new CompactGraph(names, table, offsets, targets);
+    }
+
+    /**
+     * The begin method returns the position of the first edge leaving a vertex.
+     *
+     * @param v     the vertex id
+     * @return      the position of its first edge
+     */
+    public int begin(int v){
+        return offsets[v];
+    }
+
+    /**
+     * The end method returns the position just past the last edge leaving a vertex.
+     *
+     * @param v     the vertex id
+     * @return      the position after its last edge
+     */
+    public int end(int v){
+        return offsets[v+1];
+    }
+
+    /**
+     * The target method returns the vertex at the end of an edge.
+     *
+     * @param e     the position of the edge
+     * @return      the vertex id the edge leads to
+     */
+    public int target(int e){
+        return targets[e];
+    }
+
+    /**
+     * The outDegree method returns the number of edges leaving a vertex.
+     */
+    public int outDegree(int v){
+        return end(v)-begin(v);
+    }
+
+    /**
+     * The name method returns the task name of a vertex.
+     */
+    public String name(int v){
+        return table != null ? table.name(v) : names[v];
+    }
+
+    /**
+     * The names method returns the id table of the graph.
+     */
+    protected String[] names(){
+        return names;
+    }
+
+    /**
+     * The table method returns the table of task names, or null if the names are kept in an array.
+     */
+    protected NameTable table(){
+        return table;
+    }
+
+    /**
+     * The reverse method creates a compact graph with all of the edges reversed. The id table is shared with this graph,
+     * and each vertex's reversed edges are listed in the order their starting vertices appear in this graph.
+     *
+     * @return  the reversed graph
+     */
+    public CompactGraph reverse(){
+        int[] rOffsets = new int[numVertices+1];
+        for(int e = 0; e<numEdges; e++){ //count the edges that will leave each vertex once reversed
+            rOffsets[target(e)+1]++;
+        }
+        for(int v = 0; v<numVertices; v++){
+            rOffsets[v+1] += rOffsets[v];
+        }
+
+        int[] next = Arrays.copyOf(rOffsets, numVertices); //the next free spot in each vertex's group of edges
+        int[] rTargets = new int[numEdges];
+        for(int v = 0; v<numVertices; v++){
+            for(int e = begin(v); e<end(v); e++){
+                rTargets[next[target(e)]++] = v; //an edge from v to w becomes an edge from w to v
+            }
+        }
+        return new CompactGraph(table() != null ? null : names(), table(), rOffsets, rTargets);
+    }
+}
@@ -0,0 +1,191 @@
+import java.util.Arrays;
+/**
+ * The DepthFirstSearch class performs depth-first traversals of a CompactGraph with an explicit stack instead of
+ * recursion, so a long chain of prerequisites cannot overflow the thread's call stack. The stack frames are two
+ * preallocated int arrays, one holding the vertex of each frame and one holding the next edge that frame will explore.
+ */
+public class DepthFirstSearch
+{
+    private final CompactGraph g; //the graph to traverse
+    private final int[] stack; //the vertex held by each frame of the stack
+    private final int[] next; //the position of the next edge each frame will explore
+    private boolean cyclic; //whether the last search for strong components found a cycle
+    private int maxDepth; //the most frames the stack has held at once
+
+    /**
+     * Creates a traversal engine for the given graph, with room for a path through every vertex.
+     */
+    public DepthFirstSearch(CompactGraph g){
+        this.g = g;
+        stack = new int[g.numVertices];
+        next = new int[g.numVertices];
+    }
+
+    /**
+     * The findsCycle method returns true if a cycle can be reached from the given vertex, and false otherwise.
+     *
+     * @param root      the index of the vertex to explore from
+     * @param marked    an array of which vertices have already been inspected
+     * @param onStack   an array of which vertices are on the current path
+     * @return whether there is a cycle reachable from the starting vertex
+     */
+    public boolean findsCycle(int root, boolean[] marked, boolean[] onStack){
+        int top = push(-1, root, marked);
+        onStack[root] = true;
+        while(top>=0){
+            int v = stack[top];
+            if(next[top]<g.end(v)){ //explore the next neighbor
+                int w = g.target(next[top]++);
+                if(onStack[w]){ //it has been reached by a vertex on the current path
+                    return true;
+                }
+                if(!marked[w]){
+                    top = push(top, w, marked);
+                    onStack[w] = true;
+                }
+            }
+            else{ //every neighbor has been explored, take it off the stack
+                onStack[v] = false;
+                top--;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The finishOrder method explores every unmarked vertex reachable from the given vertex, and places each one in the
+     * list once all of its neighbors have been placed, filling the list from the back.
+     *
+     * @param root      the index of the vertex to explore from
+     * @param marked    an array of which vertices have already been explored
+     * @param list      the list of vertex ids to add to
+     * @param index     the spot in the list to add the next finished vertex to
+     * @return          the spot in the list for the next vertex after this traversal
+     */
+    public int finishOrder(int root, boolean[] marked, int[] list, int index){
+        int top = push(-1, root, marked);
+        while(top>=0){
+            int v = stack[top];
+            if(next[top]<g.end(v)){ //explore the next neighbor
+                int w = g.target(next[top]++);
+                if(!marked[w]){
+                    top = push(top, w, marked);
+                }
+            }
+            else{ //every neighbor has been explored, add it to the list
+                list[index] = v;
+                index--;
+                top--;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * The strongComponents method splits the whole graph into its strongly connected components with a single pass of
+     * Tarjan's algorithm. A component is numbered once every vertex reachable from it has been numbered, so following an
+     * edge never leads to a component with a higher number, and the components in topological order are the highest
+     * number down to zero. Whether the graph has a cycle is found in the same pass.
+     *
+     * @param component     an array to fill with the component number of each vertex
+     * @return              the number of components
+     */
+    public int strongComponents(int[] component){
+        int n = g.numVertices;
+        int[] order = new int[n]; //the order each vertex was reached in, starting at 1, or 0 if it hasn't been reached
+        int[] low = new int[n]; //the earliest reached vertex on the stack that each vertex can get back to
+        int[] found = new int[n]; //the vertices that have been reached but not yet put in a component
+        int numFound = 0;
+        int counter = 0;
+        int count = 0;
+        cyclic = false;
+        Arrays.fill(component, -1);
+
+        for(int root = 0; root<n; root++){
+            if(order[root]!=0){ //if it has already been reached, carry on
+                continue;
+            }
+            int top = 0;
+            stack[0] = root;
+            next[0] = g.begin(root);
+            maxDepth = Math.max(maxDepth, 1);
+            order[root] = low[root] = ++counter;
+            found[numFound++] = root;
+            while(top>=0){
+                int v = stack[top];
+                if(next[top]<g.end(v)){ //explore the next neighbor
+                    int w = g.target(next[top]++);
+                    if(w==v){ //a task that depends on itself
+                        cyclic = true;
+                    }
+                    if(order[w]==0){ //reach it for the first time
+                        top++;
+                        if(top>=maxDepth){
+                            maxDepth = top+1;
+                        }
+                        stack[top] = w;
+                        next[top] = g.begin(w);
+                        order[w] = low[w] = ++counter;
+                        found[numFound++] = w;
+                    }
+                    else if(component[w]<0 && order[w]<low[v]){ //it is still waiting for a component
+                        low[v] = order[w];
+                    }
+                }
+                else{ //every neighbor has been explored
+                    if(low[v]==order[v]){ //v is the first vertex reached in its component, so the component is finished
+                        int size = 0;
+                        int w;
+                        do{
+                            w = found[--numFound];
+                            component[w] = count;
+                            size++;
+                        }
+                        while(w!=v);
+                        if(size>1){
+                            cyclic = true;
+                        }
+                        count++;
+                    }
+                    top--;
+                    if(top>=0 && low[v]<low[stack[top]]){ //pass how far back v can reach on to its parent
+                        low[stack[top]] = low[v];
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The foundCycle method returns whether the last call to strongComponents found a cycle, either a component with more
+     * than one vertex or a vertex with an edge to itself.
+     */
+    public boolean foundCycle(){
+        return cyclic;
+    }
+
+    /**
+     * The maxDepth method returns the most vertices that have been on the stack at once, over every traversal so far,
+     * which is the length of the longest path the traversals followed.
+     */
+    public int maxDepth(){
+        return maxDepth;
+    }
+
+    /**
+     * The push method marks a vertex and places a new frame for it on top of the stack.
+     *
+     * @return  the index of the new top frame
+     */
+    private int push(int top, int v, boolean[] marked){
+        top++;
+        if(top>=maxDepth){
+            maxDepth = top+1;
+        }
+        marked[v] = true;
+        stack[top] = v;
+        next[top] = g.begin(v);
+        return top;
+    }
+}
@@ -1,7 +1,13 @@
 import java.util.*;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
 /**
- * The DirectedGraph class creates an unweighted directed graph whose kernels, vertices, and edges are objects.
+ * The DirectedGraph class creates an unweighted directed graph whose kernels, vertices, and edges are objects. While the
+ * graph is being built its edges are kept in growable int arrays. Once loading is finished the graph is compacted into a
+ * CompactGraph, which the sorting algorithms run on, and the vertex and edge objects become a view on top of it.
  *
  * @author Anna Van Boven
  * @version December 12,2020
@@ -11,41 +17,125 @@ public class DirectedGraph
 {
     public int numVertices; //the number of total vertices created so far
     public int numEdges; //the number of total edges created so far
-    public Vertex[] vertices; //an array of inputted size that holds the vertices
-    public HashMap<String,Integer> tasks; //holds the spot in the vertices array that each vertex is at
+    private Vertex[] vertices; //the vertex objects, each made the first time it is asked for by the vertex method
+    public NameTable tasks; //the task names, numbered by their spot in the vertices array
+    private boolean sharedNames; //whether the compact graph shares the table of task names, so it is copied on thawing
+    private int[] edgeStart; //the starting vertex of each edge added so far, or null once compacted
+    private int[] edgeEnd; //the ending vertex of each edge added so far, or null once compacted
+    private CompactGraph csr; //the frozen form of the graph, or null while the graph is still being built
+    private boolean cyclic; //whether the last sort found mutually dependent tasks
+    private int searchDepth; //the longest path the depth-first searches of the last sort followed
+    private ForkJoinPool pool; //the pool that the parallel sorts run on
+    private DynamicKernels tracked; //the kernels kept up to date as edges are added and removed, or null if they aren't kept
+    private EdgeSet edgeSet; //every edge in the graph, kept once duplicates are being rejected, or null otherwise
+    private EdgeIndex positions; //where each vertex's edges are in the edge arrays, or null until something is removed
+    private ExternalGraph external; //the graph's edges kept on disk, or null if they are in memory
+    private double[] durations; //how long each task takes, NaN for one without a duration, or null if none have one
 
     /**
-     * The DirectedGraph creates a directed graph that can hold the number of vertices given to it
+     * The SortMode enum lists the ways the sort method can split the graph into kernels.
+     */
+    public enum SortMode{
+        TARJAN, //one pass of Tarjan's algorithm finds the kernels and whether there is a cycle
+        KOSARAJU, //a cycle check, then a topological sort or Kosaraju's algorithm on the reversed graph
+        LEVELS, //a parallel Kahn's algorithm groups tasks that can run at the same time, if there is no cycle
+        PARALLEL, //the forward-backward algorithm finds the kernels on the fork/join pool
+        INCREMENTAL, //the kernels kept up to date since trackKernels was called, or Tarjan's algorithm if there aren't any
+        EXTERNAL //Tarjan's algorithm over edges kept on disk by TaskFileLoader.loadExternal, or in memory if there aren't any
+    }
+
+    /**
+     * Creates an empty directed graph that grows as vertices and edges are added.
+     */
+    public DirectedGraph(){
+        this(16,16);
+    }
+
+    /**
+     * The DirectedGraph creates a directed graph with room for the number of vertices given to it. The size is only a
+     * hint, and the graph grows past it if more vertices are added.
      */
     public DirectedGraph(int size){
-        vertices = new Vertex[size];
-        tasks = new HashMap<>();
+        this(size,size);
+    }
+
+    /**
+     * Creates a directed graph with room for the given numbers of vertices and edges before it has to grow.
+     *
+     * @param vertexHint    the number of vertices to make room for
+     * @param edgeHint      the number of edges to make room for
+     */
+    public DirectedGraph(int vertexHint, int edgeHint){
+        vertices = new Vertex[Math.max(1,vertexHint)];
+        tasks = new NameTable(vertexHint);
+        edgeStart = new int[Math.max(1,edgeHint)];
+        edgeEnd = new int[Math.max(1,edgeHint)];
         numVertices = 0;
         numEdges = 0;
+        pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Creates a directed graph that is a view on top of an already compact graph. A vertex without a name can't be
+     * looked up by name. A table of names that can't change, such as one read from a snapshot, is used as it is until
+     * the graph changes.
+     */
+    public DirectedGraph(CompactGraph g){
+        vertices = new Vertex[Math.max(1,g.numVertices)];
+        if(g.table() != null && g.table().readOnly()){ //nothing can change it, so it is only copied once this graph changes
+            tasks = g.table();
+        }
+        else if(g.table() != null){ //the names are already in a table, which is copied so that adding to it can't change g
+            tasks = g.table().copy();
+        }
+        else{
+            tasks = new NameTable(g.numVertices);
+            for(int i = 0; i<g.numVertices; i++){
+                String name = g.name(i);
+                if(name == null){
+                    tasks.addUnnamed();
+                }
+                else{
+                    tasks.add(name);
+                }
+            }
+        }
+        numVertices = g.numVertices;
+        numEdges = g.numEdges;
+        edgeStart = null; //the edges live in the compact graph
+        edgeEnd = null;
+        csr = g;
+        pool = ForkJoinPool.commonPool();
     }
 
     /**
      * The Vertex class creates a Vertex that holds its label as a string.
      */
     public class Vertex{
-        public ArrayList<Edge> edges; //an arraylist of edges that begin at this vertex and lead to another
         public String task; //the task label
+        public int index; //the spot in the vertices array that holds this vertex
 
         /**
-         * Creates a vertex with the given name.
+         * Creates a vertex with the given name and spot in the vertices array.
          */
-        Vertex(String name){
-            edges = new ArrayList<Edge>();
+        Vertex(String name, int i){
             task = name;
+            index = i;
         }
 
         /**
-         * Returns a list of the edges connected to this vertex.
+         * Returns a list of the edges connected to this vertex. The list is built from the compact graph each time it is
+         * asked for, so the graph is compacted first if it is still being built.
          * 
          * @return  edge ArrayList
          */
         public ArrayList<Edge> getEdges(){
-            return edges;
+            CompactGraph csr = compact();
+            ArrayList<Edge> view = new ArrayList<Edge>(csr.outDegree(index));
+            for(int e = csr.begin(index); e<csr.end(index); e++){
+                view.add(new Edge(this,vertex(csr.target(e))));
+            }
+            return view;
         }
 
         /**
@@ -54,15 +144,18 @@ public class DirectedGraph
          * @return      the shared edge
          */
         public Edge sharedEdge(Vertex v){
-            Edge edge = null;
-            //loops through each edge connected to the current vertex, checking to see if the edge
-            //connects the current vertex with the inputted vertex
-            for(int i = 0; i < edges.size(); i++){
-                if(edges.get(i).getOther(this).task.equals(v.task)){
-                    edge = edges.get(i);
+            if(edgeSet != null){ //the edge can be looked up directly
+                return edgeSet.contains(index,v.index) ? new Edge(this,v) : null;
+            }
+            CompactGraph csr = compact();
+            //loops backwards through each edge leaving the current vertex, checking to see if the edge
+            //connects the current vertex with the inputted vertex, so only the edge that is returned is created
+            for(int e = csr.end(index)-1; e >= csr.begin(index); e--){
+                if(csr.target(e) == v.index){
+                    return new Edge(this,v);
                 }
             }
-            return edge;
+            return null;
         }
 
         /**
@@ -97,10 +190,10 @@ public class DirectedGraph
          * @return      the other vertex
          */
         public Vertex getOther(Vertex v){
-            if(v.task.equals(start.task)){
+            if(v.index == start.index){ //vertices are compared by their spot instead of by name
                 return end;
             }
-            else if (v.task.equals(end.task)){
+            else if (v.index == end.index){
                 return start;
             }
             else{
@@ -185,49 +278,701 @@ public class DirectedGraph
          * The toString method returns a string representation of the kernel, as a list of its vertices
          */
         public String toString(){
-            String s = "";
+            StringBuilder s = new StringBuilder(); //appending keeps this linear in the size of the kernel
             for(int i = 0; i<verts.size()-1; i++){
-                s+= verts.get(i).toString() + ", ";
+                s.append(verts.get(i).toString()).append(", ");
             }
-            s+=verts.get(verts.size()-1).toString();
-            return s;
+            s.append(verts.get(verts.size()-1).toString());
+            return s.toString();
         }
     }
 
     /**
-     * The addEdge method adds an edge to the directed graph
+     * The addEdge method adds an edge to the directed graph. If the kernels are being tracked, it also reports whether
+     * the new edge closed a cycle.
      * 
      * @param start the starting vertex
      * @param end   the ending vertex
+     * @return      true if the kernels are being tracked and this edge closed a cycle, false otherwise
      */
-    public void addEdge(String start, String end){
+    public boolean addEdge(String start, String end){
         //get the spot in the vertex array that holds the correct vertices
-        try{
-            int v1 = tasks.get(start);
-            int v2 = tasks.get(end);
-            addEdge(vertices[v1],vertices[v2]); //calls the private addEdge method on the vertices
-            numEdges++;
-        }
-        catch(NullPointerException e){
+        int v1 = tasks.find(start);
+        int v2 = tasks.find(end);
+        if(v1 < 0 || v2 < 0){
             System.out.println("graph does not contain one of the two vertices");
+            return false;
         }
+        return addEdge(v1,v2); //calls the private addEdge method on the vertex indices
     }
 
-    private void addEdge(Vertex start, Vertex end){
-        Edge edge = new Edge(start,end); //creates a new edge object
-        start.edges.add(edge); //adds the edge to the start vertex's list of edges
+    /**
+     * The addEdges method adds a batch of edges to the directed graph, adding any vertex that isn't in the graph yet.
+     * Room for the whole batch is made at once.
+     *
+     * @param starts    the starting vertex of each edge
+     * @param ends      the ending vertex of each edge
+     * @param count     the number of edges in the batch
+     */
+    public void addEdges(String[] starts, String[] ends, int count){
+        thaw(); //a frozen graph has to be unpacked before it can change
+        ensureEdgeCapacity(numEdges+count);
+        for(int i = 0; i<count; i++){
+            addEdge(indexOf(starts[i]),indexOf(ends[i]));
+        }
     }
 
     /**
-     * The addVertex method adds a vertex to the directed graph
+     * The addEdges method adds a batch of edges between vertices given by id. Room for the whole batch is made at once.
+     *
+     * @param starts    the starting vertex id of each edge
+     * @param ends      the ending vertex id of each edge
+     * @param count     the number of edges in the batch
+     */
+    public void addEdges(int[] starts, int[] ends, int count){
+        thaw(); //a frozen graph has to be unpacked before it can change
+        ensureEdgeCapacity(numEdges+count);
+        if(edgeSet == null && tracked == null && positions == null){ //nothing to check, so the batch is copied straight in
+            System.arraycopy(starts, 0, edgeStart, numEdges, count);
+            System.arraycopy(ends, 0, edgeEnd, numEdges, count);
+            numEdges += count;
+            return;
+        }
+        for(int i = 0; i<count; i++){
+            addEdge(starts[i],ends[i]);
+        }
+    }
+
+    private boolean addEdge(int start, int end){
+        if(edgeSet != null && !edgeSet.add(start,end)){ //the edge is already in the graph
+            return false;
+        }
+        thaw(); //a frozen graph has to be unpacked before it can change
+        ensureEdgeCapacity(numEdges+1);
+        edgeStart[numEdges] = start; //adds the edge to the end of the edge arrays
+        edgeEnd[numEdges] = end;
+        if(positions != null){
+            positions.add(numEdges, start, end);
+        }
+        numEdges++;
+        return tracked != null && tracked.addEdge(start,end);
+    }
+
+    /**
+     * The addVertex method adds a vertex to the directed graph, unless the task is already in it
      * 
      * @param task  tha vertex label
      */
     public void addVertex(String task){
-        tasks.put(task,numVertices); //puts the new vertex in the hashmap with the key being its spot in the vertices array
-        Vertex v = new Vertex(task); //creates a new vertex object
-        vertices[numVertices] = v; //places the new vertex in the vertices array
+        thaw(); //a frozen graph has to be unpacked before it can change
+        if(tasks.add(task) == numVertices){ //the table gives a new task the next id
+            added();
+        }
+    }
+
+    /**
+     * The addVertex method returns the id of the task whose UTF-8 name is held in a slice of bytes, adding the task
+     * first if it isn't in the graph yet. The name is looked up straight from the bytes, so no String is made.
+     *
+     * @param bytes     the array holding the name
+     * @param off       where the name starts
+     * @param len       the number of bytes in the name
+     * @return          the id of the task
+     */
+    public int addVertex(byte[] bytes, int off, int len){
+        thaw(); //a frozen graph has to be unpacked before it can change
+        int id = tasks.add(bytes, off, len);
+        if(id == numVertices){
+            added();
+        }
+        return id;
+    }
+
+    /**
+     * The added method makes room for a vertex that was just given the next id in the table of task names.
+     */
+    private void added(){
+        if(numVertices == vertices.length){ //if the vertices array is full, double its size
+            vertices = Arrays.copyOf(vertices, vertices.length*2);
+        }
         numVertices++; //increment counter
+        if(positions != null){
+            positions.ensureVertices(numVertices);
+        }
+        if(tracked != null){
+            tracked.addVertex();
+        }
+    }
+
+    /**
+     * The vertex method returns the vertex object with the given id, making it the first time it is asked for.
+     */
+    public Vertex vertex(int v){
+        Vertex vertex = vertices[v];
+        if(vertex == null){
+            vertex = new Vertex(tasks.name(v), v);
+            vertices[v] = vertex;
+        }
+        return vertex;
+    }
+
+    /**
+     * The addVertices method adds a batch of vertices to the directed graph. Tasks that are already in the graph are
+     * skipped, and room for the whole batch is made at once.
+     *
+     * @param batch     the vertex labels
+     * @param count     the number of labels in the batch
+     */
+    public void addVertices(String[] batch, int count){
+        thaw(); //a frozen graph has to be unpacked before it can change
+        if(numVertices+count > vertices.length){
+            vertices = Arrays.copyOf(vertices, Math.max(numVertices+count, vertices.length*2));
+        }
+        for(int i = 0; i<count; i++){
+            indexOf(batch[i]);
+        }
+    }
+
+    /**
+     * The addGraphs method adds every vertex and edge of some other graphs to this graph, one graph after another, as if
+     * they had been added to this graph in that order. The vertices are numbered in the order they first appear, and the
+     * other graphs' edges are copied into the edge arrays on the fork/join pool, each graph into its own stretch of them,
+     * unless every edge has to be checked one at a time because duplicates are rejected or kernels are tracked.
+     *
+     * @param parts     the graphs to add
+     */
+    public void addGraphs(DirectedGraph[] parts){
+        thaw(); //a frozen graph has to be unpacked before it can change
+        positions = null; //the edges are copied in bulk, so they are indexed again if one is removed later
+        int[][] ids = tracked == null ? numberInParallel(parts) : new int[parts.length][];
+        int[] from = new int[parts.length+1]; //where each part's edges start in the edge arrays
+        from[0] = numEdges;
+        for(int p = 0; p<parts.length; p++){
+            DirectedGraph part = parts[p];
+            part.thaw();
+            if(ids[p] == null){ //the kernels are told about each new vertex one at a time
+                ids[p] = new int[part.numVertices];
+                for(int i = 0; i<part.numVertices; i++){
+                    ids[p][i] = indexOf(part.tasks, i);
+                }
+            }
+            if(part.durations != null){
+                for(int i = 0; i<Math.min(part.numVertices, part.durations.length); i++){
+                    if(!Double.isNaN(part.durations[i])){
+                        setDuration(ids[p][i], part.durations[i]);
+                    }
+                }
+            }
+            from[p+1] = from[p] + part.numEdges;
+        }
+        ensureEdgeCapacity(from[parts.length]);
+        if(edgeSet != null || tracked != null){
+            for(int p = 0; p<parts.length; p++){
+                for(int e = 0; e<parts[p].numEdges; e++){
+                    addEdge(ids[p][parts[p].edgeStart[e]], ids[p][parts[p].edgeEnd[e]]);
+                }
+            }
+        }
+        else{
+            inParallel(parts.length, p -> {
+                DirectedGraph part = parts[p];
+                for(int e = 0; e<part.numEdges; e++){
+                    edgeStart[from[p]+e] = ids[p][part.edgeStart[e]];
+                    edgeEnd[from[p]+e] = ids[p][part.edgeEnd[e]];
+                }
+            });
+            numEdges = from[parts.length];
+        }
+    }
+
+    /**
+     * The numberInParallel method adds the vertices of some other graphs to this graph, numbering them in the order they
+     * first appear, with most of the work done on the fork/join pool. Every task name is entered into a concurrent table
+     * along with the earliest place it was seen, given as the part and its id in that part, so each name ends up owned
+     * by its first appearance. Counting each part's owners gives where its new vertices start, and every other
+     * appearance takes its id from its owner. Only the table of task names is filled in one vertex at a time, copying
+     * each new name's bytes over from the part that owns it.
+     *
+     * @param parts     the graphs whose vertices are added
+     * @return          the id in this graph of each vertex of each part
+     */
+    private int[][] numberInParallel(DirectedGraph[] parts){
+        int total = numVertices;
+        for(DirectedGraph part : parts){
+            total += part.numVertices;
+        }
+        //the place a name was first seen is the part plus one, then the id, so the vertices already here come first
+        ConcurrentHashMap<Name,Long> first = new ConcurrentHashMap<>(Math.max(16, total*4/3));
+        inParallel(parts.length+1, p -> {
+            NameTable names = p == 0 ? tasks : parts[p-1].tasks;
+            for(int i = 0; i<names.size(); i++){
+                first.merge(new Name(names, i), ((long)p << 32) | i, Math::min);
+            }
+        });
+
+        int[][] ids = new int[parts.length][];
+        int[] owned = new int[parts.length]; //the number of names each part saw first
+        inParallel(parts.length, p -> {
+            ids[p] = new int[parts[p].numVertices];
+            long place = (long)(p+1) << 32;
+            for(int i = 0; i<parts[p].numVertices; i++){
+                if(first.get(new Name(parts[p].tasks, i)) == (place | i)){
+                    ids[p][i] = -1; //marked as owned until its id is known
+                    owned[p]++;
+                }
+                else{
+                    ids[p][i] = -2; //marked as seen first somewhere else
+                }
+            }
+        });
+        int[] base = new int[parts.length+1]; //the id of each part's first new vertex
+        base[0] = numVertices;
+        for(int p = 0; p<parts.length; p++){
+            base[p+1] = base[p] + owned[p];
+        }
+        inParallel(parts.length, p -> {
+            int next = base[p];
+            for(int i = 0; i<parts[p].numVertices; i++){
+                if(ids[p][i] == -1){
+                    ids[p][i] = next++;
+                }
+            }
+        });
+        inParallel(parts.length, p -> {
+            for(int i = 0; i<parts[p].numVertices; i++){
+                if(ids[p][i] == -2){ //owned by an earlier part or this graph
+                    long place = first.get(new Name(parts[p].tasks, i));
+                    int owner = (int)(place >>> 32);
+                    ids[p][i] = owner == 0 ? (int)place : ids[owner-1][(int)place];
+                }
+            }
+        });
+
+        if(base[parts.length] > vertices.length){
+            vertices = Arrays.copyOf(vertices, base[parts.length]);
+        }
+        for(int p = 0; p<parts.length; p++){ //the owners in order, so the table gives them the ids worked out above
+            for(int i = 0; i<parts[p].numVertices; i++){
+                int id = ids[p][i];
+                if(id >= base[p] && id < base[p+1]){
+                    tasks.add(parts[p].tasks, i);
+                }
+            }
+        }
+        numVertices = base[parts.length];
+        return ids;
+    }
+
+    /**
+     * The Name class is a key for a task name held in some graph's table of names, which is equal to every key for the
+     * same name in any table.
+     */
+    private static class Name{
+        private final NameTable table; //the table holding the name
+        private final int id; //the name's id in that table
+
+        Name(NameTable table, int id){
+            this.table = table;
+            this.id = id;
+        }
+
+        public int hashCode(){
+            return table.hashOf(id);
+        }
+
+        public boolean equals(Object o){
+            return o instanceof Name && table.sameName(id, ((Name)o).table, ((Name)o).id);
+        }
+    }
+
+    /**
+     * The inParallel method runs a step once for each number below the count, each on the fork/join pool, and waits for
+     * all of them to finish.
+     */
+    private void inParallel(int count, IntConsumer step){
+        ArrayList<ForkJoinTask<?>> steps = new ArrayList<>();
+        for(int i = 0; i<count; i++){
+            final int p = i;
+            steps.add(pool.submit(() -> step.accept(p)));
+        }
+        for(ForkJoinTask<?> s : steps){
+            s.join();
+        }
+    }
+
+    /**
+     * The indexOf method returns the spot in the vertices array that holds a task, adding the task first if it isn't in
+     * the graph yet.
+     */
+    private int indexOf(String task){
+        int index = tasks.add(task);
+        if(index == numVertices){
+            added();
+        }
+        return index;
+    }
+
+    /**
+     * The indexOf method returns the spot in the vertices array that holds a task named in another graph's table,
+     * adding the task first if it isn't in the graph yet.
+     */
+    private int indexOf(NameTable names, int id){
+        int index = tasks.add(names, id);
+        if(index == numVertices){
+            added();
+        }
+        return index;
+    }
+
+    /**
+     * The ensureEdgeCapacity method doubles the edge arrays until they can hold the given number of edges.
+     */
+    private void ensureEdgeCapacity(int capacity){
+        if(capacity > edgeStart.length){
+            int size = Math.max(capacity, edgeStart.length*2);
+            edgeStart = Arrays.copyOf(edgeStart, size);
+            edgeEnd = Arrays.copyOf(edgeEnd, size);
+        }
+    }
+
+    /**
+     * The removeEdge method removes an edge from the directed graph. If the edge was added more than once, only one copy
+     * is removed. The last edge in the edge arrays takes the removed edge's place, so only the edges of the vertices
+     * involved are looked at.
+     *
+     * @param start the starting vertex
+     * @param end   the ending vertex
+     * @return      true if the edge was in the graph, false otherwise, including when either task isn't in the graph
+     */
+    public boolean removeEdge(String start, String end){
+        int v1 = tasks.find(start);
+        int v2 = tasks.find(end);
+        if(v1 < 0 || v2 < 0){
+            return false;
+        }
+        if(edgeSet != null && !edgeSet.remove(v1,v2)){ //the edge isn't in the graph, so there's nothing to look for
+            return false;
+        }
+        thaw(); //a frozen graph has to be unpacked before it can change
+        indexPositions();
+        int found = -1; //the position of the latest copy of the edge
+        for(int i = 0; i<positions.outDegree(v1); i++){
+            int e = positions.outEdge(v1, i);
+            if(edgeEnd[e] == v2 && e > found){
+                found = e;
+            }
+        }
+        if(found < 0){
+            return false;
+        }
+        removeEdgeAt(found);
+        if(tracked != null){
+            tracked.removeEdge(v1,v2);
+        }
+        return true;
+    }
+
+    /**
+     * The removeVertex method removes a vertex and all of its edges from the directed graph. The last vertex in the
+     * vertices array moves into the removed vertex's spot. Only the edges of those two vertices are looked at.
+     *
+     * @param task  the vertex label
+     * @return      true if the vertex was in the graph, false otherwise
+     */
+    public boolean removeVertex(String task){
+        int v = tasks.find(task);
+        if(v < 0){
+            return false;
+        }
+        thaw(); //a frozen graph has to be unpacked before it can change
+        indexPositions();
+        while(positions.outDegree(v) > 0){ //drop the vertex's edges, an edge to itself going with the edges leaving it
+            removeEdgeAt(positions.outEdge(v, positions.outDegree(v)-1));
+        }
+        while(positions.inDegree(v) > 0){
+            removeEdgeAt(positions.inEdge(v, positions.inDegree(v)-1));
+        }
+        int last = numVertices-1;
+        if(v != last){ //point the last vertex's edges at its new spot
+            renumber(last, v);
+        }
+        tasks.remove(v); //the last task takes its id
+        if(vertices[v] != null){ //a Vertex held onto by the caller no longer stands for any task
+            vertices[v].index = -1;
+        }
+        if(v != last){
+            vertices[v] = vertices[last];
+            if(vertices[v] != null){
+                vertices[v].index = v;
+            }
+            if(durations != null){
+                durations[v] = durations[last];
+            }
+        }
+        vertices[last] = null;
+        numVertices--;
+        if(tracked != null){
+            tracked.removeVertex(v);
+        }
+        return true;
+    }
+
+    /**
+     * The indexPositions method indexes where each vertex's edges are in the edge arrays, if they aren't indexed yet.
+     * This looks through every edge once, and the index is kept up to date from then on until the graph is compacted.
+     */
+    private void indexPositions(){
+        if(positions == null){
+            positions = new EdgeIndex(numVertices, edgeStart, edgeEnd, numEdges);
+        }
+    }
+
+    /**
+     * The removeEdgeAt method removes the edge at a position in the edge arrays, from the set of edges as well if there
+     * is one, and moves the last edge into its place.
+     */
+    private void removeEdgeAt(int e){
+        if(edgeSet != null){
+            edgeSet.remove(edgeStart[e], edgeEnd[e]); //already gone if removeEdge took it out
+        }
+        positions.remove(e, edgeStart[e], edgeEnd[e]);
+        int last = numEdges-1;
+        if(e != last){ //fill the gap with the last edge
+            edgeStart[e] = edgeStart[last];
+            edgeEnd[e] = edgeEnd[last];
+            positions.move(last, e, edgeStart[e], edgeEnd[e]);
+        }
+        numEdges--;
+    }
+
+    /**
+     * The renumber method gives every edge of a vertex another id for it, in the set of edges as well if there is one.
+     * The vertex with the new id must have no edges.
+     */
+    private void renumber(int from, int to){
+        fileEdges(from, false); //the set of edges is keyed by id, so the edges are taken out and put back
+        for(int i = 0; i<positions.outDegree(from); i++){
+            edgeStart[positions.outEdge(from, i)] = to;
+        }
+        for(int i = 0; i<positions.inDegree(from); i++){
+            edgeEnd[positions.inEdge(from, i)] = to;
+        }
+        fileEdges(from, true);
+        positions.moveVertex(from, to);
+    }
+
+    /**
+     * The fileEdges method adds every edge of a vertex to the set of edges, or takes them out of it, if there is one.
+     */
+    private void fileEdges(int v, boolean add){
+        if(edgeSet == null){
+            return;
+        }
+        for(int i = 0; i<positions.outDegree(v)+positions.inDegree(v); i++){
+            int e = i<positions.outDegree(v) ? positions.outEdge(v, i) : positions.inEdge(v, i-positions.outDegree(v));
+            if(add){
+                edgeSet.add(edgeStart[e], edgeEnd[e]);
+            }
+            else{
+                edgeSet.remove(edgeStart[e], edgeEnd[e]);
+            }
+        }
+    }
+
+    /**
+     * The rejectDuplicateEdges method makes the graph keep only one copy of each edge. Copies already in the graph are
+     * removed, and from then on adding an edge that is already there does nothing. The edges are kept in an EdgeSet as
+     * well, so checking whether two vertices share an edge takes constant time.
+     */
+    public void rejectDuplicateEdges(){
+        thaw(); //a frozen graph has to be unpacked before it can change
+        EdgeSet seen = new EdgeSet(numEdges);
+        int m = 0;
+        for(int e = 0; e<numEdges; e++){ //keep the first copy of each edge, in order
+            if(seen.add(edgeStart[e],edgeEnd[e])){
+                edgeStart[m] = edgeStart[e];
+                edgeEnd[m] = edgeEnd[e];
+                m++;
+            }
+            else if(tracked != null){
+                tracked.removeEdge(edgeStart[e],edgeEnd[e]);
+            }
+        }
+        numEdges = m;
+        edgeSet = seen;
+        positions = null; //the edges moved
+    }
+
+    /**
+     * The hasEdge method returns whether there is an edge from one task to another. It takes constant time once
+     * duplicate edges are being rejected, and otherwise looks through the edges leaving the first task.
+     *
+     * @param start the starting vertex
+     * @param end   the ending vertex
+     * @return      true if the edge is in the graph, false otherwise, including when either task isn't in the graph
+     */
+    public boolean hasEdge(String start, String end){
+        int v1 = tasks.find(start);
+        int v2 = tasks.find(end);
+        if(v1 < 0 || v2 < 0){
+            return false;
+        }
+        return areAdjacent(vertex(v1),vertex(v2));
+    }
+
+    /**
+     * The setDuration method sets how long a task takes. Tasks without a duration take one unit of time.
+     *
+     * @param task  the vertex label
+     * @param time  how long the task takes
+     */
+    public void setDuration(String task, double time){
+        int index = tasks.find(task);
+        if(index < 0){
+            System.out.println("graph does not contain the vertex");
+            return;
+        }
+        setDuration(index, time);
+    }
+
+    /**
+     * The setDuration method sets how long the vertex with the given id takes.
+     */
+    public void setDuration(int index, double time){
+        if(durations == null || durations.length < vertices.length){
+            int old = durations == null ? 0 : durations.length;
+            durations = durations == null ? new double[vertices.length] : Arrays.copyOf(durations, vertices.length);
+            Arrays.fill(durations, old, durations.length, Double.NaN);
+        }
+        durations[index] = time;
+    }
+
+    /**
+     * The hasDurations method returns whether any task has been given a duration.
+     */
+    public boolean hasDurations(){
+        return durations != null;
+    }
+
+    /**
+     * The getDuration method returns how long the vertex with the given id takes.
+     */
+    public double getDuration(int v){
+        return durations == null || v >= durations.length || Double.isNaN(durations[v]) ? 1 : durations[v];
+    }
+
+    /**
+     * The schedule method works out the depth, earliest start, and slack of every task, and the critical path, on the
+     * graph of kernels.
+     *
+     * @return  the schedule
+     */
+    public Schedule schedule(){
+        double[] time = new double[numVertices];
+        for(int v = 0; v<numVertices; v++){
+            time[v] = getDuration(v);
+        }
+        return new Schedule(compact(), time);
+    }
+
+    /**
+     * The reachability method builds an index over the graph of kernels that answers whether one task leads to another
+     * without searching the whole graph.
+     *
+     * @return  the reachability index
+     */
+    public Reachability reachability(){
+        return new Reachability(compact());
+    }
+
+    /**
+     * The transitiveReduction method returns a graph with the same tasks and durations that leaves out every prerequisite
+     * implied by the others, keeping only enough edges that each task still leads to exactly the same tasks. It sorts
+     * into the same kernels with fewer edges to follow. The windows of kernels are worked out on the fork/join pool.
+     *
+     * @return  the reduced graph
+     */
+    public DirectedGraph transitiveReduction(){
+        DirectedGraph reduced = new DirectedGraph(new TransitiveReduction(compact(), pool).graph());
+        reduced.usePool(pool);
+        if(durations != null){
+            for(int v = 0; v<Math.min(numVertices, durations.length); v++){
+                if(!Double.isNaN(durations[v])){
+                    reduced.setDuration(v, durations[v]);
+                }
+            }
+        }
+        if(edgeSet != null){ //the reduced graph has no repeats, but keeps rejecting them
+            reduced.rejectDuplicateEdges();
+        }
+        return reduced;
+    }
+
+    /**
+     * The useExternalEdges method attaches edges kept on disk to a graph that holds only its vertices, for sorting in
+     * EXTERNAL mode. The other methods only see the edges held in memory.
+     */
+    public void useExternalEdges(ExternalGraph g){
+        external = g;
+    }
+
+    /**
+     * The externalEdges method returns the edges kept on disk, or null if the graph's edges are in memory. Whoever loaded
+     * the graph closes them once it is done with it, which deletes their file.
+     */
+    public ExternalGraph externalEdges(){
+        return external;
+    }
+
+    /**
+     * The trackKernels method starts keeping the graph's kernels and their topological order up to date as edges are
+     * added and removed, so that addEdge can report a cycle as soon as one is closed and sorting in INCREMENTAL mode
+     * doesn't need a traversal.
+     */
+    public void trackKernels(){
+        tracked = new DynamicKernels(compact());
+    }
+
+    /**
+     * The compact method freezes the graph into a CompactGraph once loading is finished. The edge arrays are released,
+     * and the vertex and edge objects become a view on top of the compact graph.
+     *
+     * @return  the compact form of the graph
+     */
+    public CompactGraph compact(){
+        if(csr != null){ //already frozen
+            return csr;
+        }
+        csr = CompactGraph.build(tasks, edgeStart, edgeEnd, numEdges); //the table of names is shared, not copied
+        sharedNames = true;
+        edgeStart = null; //release the edge arrays
+        edgeEnd = null;
+        positions = null;
+        return csr;
+    }
+
+    /**
+     * The thaw method unpacks a compacted graph back into edge arrays so that it can be changed again.
+     */
+    private void thaw(){
+        if(csr == null){ //not frozen
+            return;
+        }
+        edgeStart = new int[Math.max(16, numEdges*2)];
+        edgeEnd = new int[edgeStart.length];
+        int e = 0;
+        for(int i = 0; i<csr.numVertices; i++){
+            for(int k = csr.begin(i); k<csr.end(i); k++){
+                edgeStart[e] = i;
+                edgeEnd[e] = csr.target(k);
+                e++;
+            }
+        }
+        csr = null;
+        if(tasks.readOnly() || sharedNames){ //read from a snapshot, or still read by the compact graph, which keeps its ids
+            tasks = tasks.copy();
+            sharedNames = false;
+        }
     }
 
     /**
@@ -251,15 +996,63 @@ public class DirectedGraph
      * @return      array of adjacent vertices
      */
     public Vertex[] getAdjacencyList(Vertex v1){
-        Vertex[] adj = new Vertex[v1.edges.size()];
-        //loops through all the edges connected to the vertex and adds the vertex at the other end of the edge to the
-        //array
-        for(int i = 0; i < v1.edges.size(); i++){
-            adj[i] = v1.edges.get(i).getOther(v1);
+        CompactGraph csr = compact(); //read the neighbors straight out of the compact graph
+        Vertex[] adj = new Vertex[csr.outDegree(v1.index)];
+        for(int e = csr.begin(v1.index); e<csr.end(v1.index); e++){
+            adj[e-csr.begin(v1.index)] = vertex(csr.target(e));
         }
         return adj;
     }
 
+    /**
+     * The idOf method returns the spot in the vertices array that holds a task, so that its neighbors can be visited
+     * by id.
+     *
+     * @param task  the task name
+     * @return      the id of the task, or -1 if it isn't in the graph
+     */
+    public int idOf(String task){
+        return tasks.find(task);
+    }
+
+    /**
+     * The outDegree method returns the number of edges leaving a vertex. Together with neighbor, it walks a vertex's
+     * neighbors by id without creating any objects.
+     *
+     * @param v     the vertex id
+     * @return      the number of neighbors, counting repeated edges
+     */
+    public int outDegree(int v){
+        return compact().outDegree(v);
+    }
+
+    /**
+     * The neighbor method returns one of the neighbors of a vertex by id.
+     *
+     * @param v     the vertex id
+     * @param i     which of its neighbors, from 0 up to outDegree(v)
+     * @return      the id of the neighbor
+     */
+    public int neighbor(int v, int i){
+        CompactGraph csr = compact();
+        return csr.target(csr.begin(v)+i);
+    }
+
+    /**
+     * The forEachNeighbor method hands the id of every vertex adjacent to a vertex to an action, in the order the edges
+     * were added, except that removing an edge moves the last one into its place, without creating any vertex or edge
+     * objects.
+     *
+     * @param v         the vertex id
+     * @param action    what to do with each neighbor's id
+     */
+    public void forEachNeighbor(int v, IntConsumer action){
+        CompactGraph csr = compact();
+        for(int e = csr.begin(v); e<csr.end(v); e++){
+            action.accept(csr.target(e));
+        }
+    }
+
     /**
      * The areAdjacent method returns whether two vertices share an edge.
      * 
@@ -267,8 +1060,12 @@ public class DirectedGraph
      * @return  true if they share an edge, false if otherwise
      */
     private boolean areAdjacent(Vertex v1, Vertex v2){
-        for(int i = 0; i < v1.edges.size(); i++){
-            if(v1.edges.get(i).getOther(v1).task.equals(v2.task)){
+        if(edgeSet != null){
+            return edgeSet.contains(v1.index,v2.index);
+        }
+        CompactGraph csr = compact();
+        for(int e = csr.begin(v1.index); e<csr.end(v1.index); e++){
+            if(csr.target(e) == v2.index){
                 return true;
             }
         }
@@ -276,61 +1073,43 @@ public class DirectedGraph
     }
 
     /**
-     * The isCycle method returns true if the directed graph contains a cycle, and false otherwise.
+     * The isCycle method returns true if the directed graph contains a cycle, and false otherwise. searchDepth gives how
+     * deep this search went afterwards.
      */
     public boolean isCycle(){
+        searchDepth = 0;
+        return searchForCycle();
+    }
+
+    /**
+     * The searchForCycle method returns true if the directed graph contains a cycle, and false otherwise, counting how
+     * deep it went toward the sort in progress.
+     */
+    private boolean searchForCycle(){
+        DepthFirstSearch dfs = new DepthFirstSearch(compact()); //explores without recursion
         boolean[]marked = new boolean[this.numVertices]; //an array determining if each vertex has been inspected
         boolean[]onStack = new boolean[this.numVertices]; //an array determining if each vertex is on the stack
 
-        for(int v = 0; v<vertices.length; v++){
+        for(int v = 0; v<numVertices; v++){
             if(marked[v]){ //if it has already been inspected, carry on
                 continue;
             }
 
-            if(cycleFinding(v,marked,onStack)){ //if a cycle was found, return true
+            if(dfs.findsCycle(v,marked,onStack)){ //if a cycle was found, return true
+                searchDepth = Math.max(searchDepth, dfs.maxDepth());
                 return true;
             }
         }
+        searchDepth = Math.max(searchDepth, dfs.maxDepth());
         return false; //if no cycles were found, return false
     }
 
-    /**
-     * The cycleFinding method reutrns true if a cycle is found from the given vertex, and false otherwise.
-     * 
-     * @param i the index of the vertex to explore
-     * @param marked    an array of which vertices have already been inspected
-     * @param onStack   an array of which vertices are on the stack
-     * @return whether there is a cycle from the starting vertex
-     */
-    private boolean cycleFinding(int i, boolean[]marked, boolean[]onStack){
-        Vertex v = vertices[i]; //grab the vertex
-        marked[i] = true; //it has been inspected
-        onStack[i] = true; //it is currently on the stack
-        Vertex n = null; //neighboring vertex
-        Vertex[]list = getAdjacencyList(v); //all vertices directly reachable from i
-        for(int k = 0; k<list.length; k++){
-            n = list[k]; //neighbor vertex
-            int index = tasks.get(n.task); //index of neighbor vertex
-            if(onStack[index]){ //if it is already on the stack, then it has been reached by another vertex
-                return true;
-            }
-
-            if(!marked[index]){ //if it hasn't already been explored, see if you can find a way to return to this vertex 
-                if(cycleFinding(index, marked, onStack)){
-                    return true;
-                }
-            }
-        }
-        onStack[i] = false; //take off the stack
-        return false;
-    }
-
     /**
      * The contains method returns true if a vertex is in the graph, and false otherwise
      */
     public boolean contains(String task){
-        //checks to see if the string is already in the hashmap
-        if(tasks.get(task)!=null){
+        //checks to see if the name is already in the table
+        if(tasks.find(task)>=0){
             return true;
         }
         return false;
@@ -342,90 +1121,144 @@ public class DirectedGraph
      * @return reverse  a directed graph with all the edges reversed
      */
     public DirectedGraph reverseGraph(){
-        DirectedGraph reverse = new DirectedGraph(this.numVertices); //reverse dg
-        Vertex v; //vertex to explore
-        Vertex[] list; //array of adjacent vertices
-        Vertex w; // neighboring vertex
-        boolean[]marked = new boolean[this.numVertices]; //an array holding whether a vertex has been explored
-        for(int i = 0; i<this.numVertices; i++){
-            v = vertices[i];
-            if(!marked[i]){ //if the vertex hasn't already been explored
-                reverse.addVertex(v.task);
-                marked[i] = true;
-            }
-
-            list = getAdjacencyList(v);
-            for(int k = 0; k<list.length; k++){
-                w = list[k]; //grab its neighbor
-                if(!marked[tasks.get(w.task)]){ //if its neighbor isn't yet on the graph
-                    reverse.addVertex(w.task);
-                    marked[tasks.get(w.task)] = true;
-
-                }
-                reverse.addEdge(w.task,v.task); //add edge from neighbor to original vertex
-
-            }
-
-        }
-        return reverse;
+        return new DirectedGraph(compact().reverse()); //the reversed graph keeps the same vertex ids
     }
 
     /**
      * The sortTopologically method sorts the current directed graph topologically, regardless of whether there is a 
-     * valid topological order to the graph
+     * valid topological order to the graph. searchDepth gives how deep this search went afterwards.
      * 
      * @return an array of vertices in the sorted orer
      */
     public Vertex[] sortTopologically(){
-        boolean[] marked = new boolean[vertices.length]; //an array of whether each vertex has been explored
-        Vertex[]list = new Vertex[vertices.length]; // the list to add the vertices too
-        int[] index = new int[1]; //the spot to add the vertices too in the array
-        index[0] = list.length-1;
+        searchDepth = 0;
+        int[] order = topologicalOrder(compact());
+        Vertex[]list = new Vertex[order.length]; // the list to add the vertices too
+        for(int i = 0; i<order.length; i++){
+            list[i] = vertex(order[i]);
+        }
+        return list;
+    }
 
-        for(int i = 0; i<vertices.length; i++){
+    /**
+     * The topologicalOrder method sorts a compact graph topologically, regardless of whether there is a valid
+     * topological order to the graph
+     *
+     * @param g     the compact graph to sort
+     * @return      an array of vertex ids in the sorted order
+     */
+    private int[] topologicalOrder(CompactGraph g){
+        DepthFirstSearch dfs = new DepthFirstSearch(g); //explores without recursion
+        boolean[] marked = new boolean[g.numVertices]; //an array of whether each vertex has been explored
+        int[]list = new int[g.numVertices]; // the list to add the vertices too
+        int index = list.length-1; //the spot to add the vertices too in the array
+
+        for(int i = 0; i<g.numVertices; i++){
             if(marked[i]){ //if already explored, continue
                 continue;
             }
-            topoSortDFT(i, marked, list, index); //perform a dft from the vertex
+            index = dfs.finishOrder(i, marked, list, index); //perform a dft from the vertex
         }
+        searchDepth = Math.max(searchDepth, dfs.maxDepth());
 
         return list;
     }
 
     /**
-     * The topoSortDFT method performs a depth-first traversal of the directed graph, adding vertices to the list as it goes.
+     * The sort method performs a sort on the directed graph with a single pass of Tarjan's algorithm.
      * 
-     * @param i index of the vertex to sort from
-     * @param marked    array of whether each vertex has been explored  
-     * @param list      list of vertices to add to
-     * @index           where to add each vertex to in the list
+     * @return k    an array of kernels in topological order
      */
-    private void topoSortDFT(int i, boolean[] marked, Vertex[]list, int[] index){
-        marked[i] = true; //mark as explored
-        Vertex v = vertices[i]; //grab the vertex
-        Vertex n = null; //neighbor
-        Vertex[]l = getAdjacencyList(v); //list of adjacent vertices
-        for(int k = 0; k<l.length; k++){
-            n = l[k];
-            int ind = tasks.get(n.task); //index of neighbor
-            if(!marked[ind]){//if the neighbor isn't already marked, sort from that vertex
-                topoSortDFT(ind, marked, list, index);
-            }
-        }
-
-        list[index[0]] = v; //add vertex to the correct spot on the list
-        index[0]--; //decrement the index
+    public Kernel[] sort(){
+        return sort(SortMode.TARJAN);
     }
 
     /**
-     * The sort method performs a sort on the directed graph.
-     * 
+     * The sort method performs a sort on the directed graph using the given mode. Whether the graph has a cycle is
+     * available from foundCycle afterwards.
+     *
+     * @param mode  how to find the kernels
      * @return k    an array of kernels in topological order
      */
-    public Kernel[] sort(){
-        Kernel[] k;
+    public Kernel[] sort(SortMode mode){
+        return sort(mode, null);
+    }
+
+    /**
+     * The sort method performs a sort on the directed graph using the given mode, timing it as the SORT phase of a run's
+     * metrics. The check for cycles that KOSARAJU does first is a whole search of its own, so it is timed apart from the
+     * rest as the CYCLE_CHECK phase.
+     *
+     * @param mode      how to find the kernels
+     * @param metrics   the metrics of the run, or null if it isn't being timed
+     * @return k        an array of kernels in topological order
+     */
+    public Kernel[] sort(SortMode mode, RunMetrics metrics){
+        if(metrics != null){
+            metrics.begin(RunMetrics.Phase.SORT);
+        }
+        Kernel[] k = sortBy(mode, metrics);
+        if(metrics != null){
+            metrics.end(RunMetrics.Phase.SORT);
+        }
+        return k;
+    }
+
+    /**
+     * The sortBy method finds the kernels for sort, with the SORT phase of the metrics, if any, already started.
+     */
+    private Kernel[] sortBy(SortMode mode, RunMetrics metrics){
+        searchDepth = 0; //the searches below add to it, so it covers the whole sort
+        if(mode == SortMode.TARJAN){
+            return componentSort();
+        }
+        if(mode == SortMode.LEVELS){
+            return levelSort();
+        }
+        if(mode == SortMode.INCREMENTAL){
+            if(tracked == null){ //there are no kernels being kept
+                return componentSort();
+            }
+            cyclic = tracked.hasCycle();
+            int[][] groups = tracked.kernels();
+            Kernel[] kernels = new Kernel[groups.length];
+            for(int i = 0; i<groups.length; i++){ //make each group into a kernel, in the order that was kept
+                kernels[i] = new Kernel(i);
+                for(int k = 0; k<groups[i].length; k++){
+                    kernels[i].addVertex(vertex(groups[i][k]));
+                }
+            }
+            return kernels;
+        }
+        if(mode == SortMode.EXTERNAL){
+            if(external == null){ //the edges are in memory
+                return componentSort();
+            }
+            int[] component = new int[numVertices];
+            int count = external.strongComponents(component);
+            cyclic = external.foundCycle();
+            searchDepth = external.maxDepth();
+            return kernels(component, count);
+        }
+        if(mode == SortMode.PARALLEL){
+            ParallelComponents pc = new ParallelComponents(compact(), pool);
+            int[] component = new int[numVertices];
+            int count = pc.strongComponents(component);
+            cyclic = pc.foundCycle();
+            return kernels(component, count);
+        }
 
-        if(isCycle()){ //if there is a cycle
+        Kernel[] k;
+        if(metrics != null){
+            metrics.end(RunMetrics.Phase.SORT);
+            metrics.begin(RunMetrics.Phase.CYCLE_CHECK);
+        }
+        cyclic = searchForCycle();
+        if(metrics != null){
+            metrics.end(RunMetrics.Phase.CYCLE_CHECK);
+            metrics.begin(RunMetrics.Phase.SORT);
+        }
+        if(cyclic){ //if there is a cycle
             Kernel[] temp = cycleSort();
             int i = 0;
             while(temp[i] == null){ //count the number of blank spaces in the cycleSort() array
@@ -440,67 +1273,146 @@ public class DirectedGraph
 
         }
         else{ //if there is no cycle
-            Vertex[] temp = sortTopologically();
-            k = new Kernel[temp.length];
+            int[] order = topologicalOrder(compact()); //not sortTopologically, which would start searchDepth over
+            k = new Kernel[order.length];
             Kernel kern;
-            for(int i = 0; i<temp.length; i++){ //make each vertex into its own kernel, add to the kernel array
+            for(int i = 0; i<order.length; i++){ //make each vertex into its own kernel, add to the kernel array
                 kern = new Kernel(i);
-                kern.addVertex(temp[i]);
+                kern.addVertex(vertex(order[i]));
                 k[i] = kern;
             }
         }
         return k;
     }
 
+    /**
+     * The foundCycle method returns true if the last sort found mutually dependent tasks, and false otherwise.
+     */
+    public boolean foundCycle(){
+        return cyclic;
+    }
+
+    /**
+     * The searchDepth method returns the longest path the depth-first searches of the last sort, or of the last call to
+     * isCycle or sortTopologically, followed, which is how deep a recursive search would have had to go. Sorts that
+     * don't search depth first leave it at zero.
+     */
+    public int searchDepth(){
+        return searchDepth;
+    }
+
+    /**
+     * The componentSort method sorts the directed graph by finding its strongly connected components in a single pass,
+     * without checking for cycles first or building the reversed graph.
+     *
+     * @return  an array of kernels in topological order
+     */
+    private Kernel[] componentSort(){
+        DepthFirstSearch dfs = new DepthFirstSearch(compact());
+        int[] component = new int[numVertices]; //the component number of each vertex
+        int count = dfs.strongComponents(component);
+        cyclic = dfs.foundCycle();
+        searchDepth = dfs.maxDepth();
+        return kernels(component, count);
+    }
+
+    /**
+     * The kernels method groups the vertices into kernels by their component numbers.
+     *
+     * @param component     the component number of each vertex, where the components in topological order are
+     *                      the highest number down to zero
+     * @param count         the number of components
+     * @return              an array of kernels in topological order
+     */
+    private Kernel[] kernels(int[] component, int count){
+        Kernel[] kernels = new Kernel[count];
+        for(int i = 0; i<count; i++){
+            kernels[i] = new Kernel(i);
+        }
+        for(int v = 0; v<numVertices; v++){ //components are numbered in reverse topological order
+            kernels[count-1-component[v]].addVertex(vertex(v));
+        }
+        return kernels;
+    }
+
+    /**
+     * The levelSort method sorts the directed graph into levels, where each kernel holds the tasks whose prerequisites
+     * are all in earlier kernels, so the tasks in a kernel can be done at the same time. A graph with a cycle has no
+     * levels, so it is sorted into its strongly connected components instead.
+     *
+     * @return  an array of kernels in topological order
+     */
+    private Kernel[] levelSort(){
+        int[][] levels = new LevelSort(compact(), pool).levels();
+        if(levels == null){
+            return componentSort();
+        }
+        cyclic = false;
+
+        Kernel[] kernels = new Kernel[levels.length];
+        for(int i = 0; i<levels.length; i++){
+            kernels[i] = new Kernel(i);
+            for(int k = 0; k<levels[i].length; k++){
+                kernels[i].addVertex(vertex(levels[i][k]));
+            }
+        }
+        return kernels;
+    }
+
+    /**
+     * The usePool method sets the fork/join pool that the parallel sorts run on. The common pool is used otherwise.
+     */
+    public void usePool(ForkJoinPool pool){
+        this.pool = pool;
+    }
+
     /**
      * 
      * The cycleSort method sorts a directed graph given that it contains at least one cycle.
      */
     private Kernel[] cycleSort(){
+        CompactGraph g = compact();
+        DepthFirstSearch dfs = new DepthFirstSearch(g); //explores without recursion
         boolean[] marked = new boolean[numVertices]; //array containing whether each vertex has been explored
-        Vertex[] topoList = new Vertex[numVertices]; //pseaudo-topological list of the vertices 
-        Vertex[] reverse = reverseGraph().sortTopologically(); //pseudo-topologically sorted list of the reverse graph
+        int[] topoList = new int[numVertices]; //pseaudo-topological list of the vertices 
+        int[] reverse = topologicalOrder(g.reverse()); //pseudo-topologically sorted list of the reverse graph
         Kernel[] kernels = new Kernel[numVertices]; //a kernel array of its maximum size (one vertex/kernel)
-        int[] index = new int[1]; //index of where to add the vertex to in the topoList array
-        index[0] = topoList.length-1;
+        int index = topoList.length-1; //index of where to add the vertex to in the topoList array
         int i=0; //grabs the index of the next unmarked vertex on the reverse list
         int rev; // grabs the next unmarked vertex on the reverse list
         int kcounter = 0; //tracks how many kernels are created
         Kernel k; //current kernel
-        int kadder = index[0]; //tracks which vertex to add to the current kerner
+        int kadder = index; //tracks which vertex to add to the current kerner
         int kindex = kernels.length-1; //tracks where in the kernel array to add the current kernel
-        //System.out.println("reverse list: " + arrayToString(reverse));
-        while(topoList[0]==null){
+        while(index>=0){ //until every vertex is on the list
             do{ //grab the next unmarked vertex
-                rev = tasks.get(reverse[i].task);
+                rev = reverse[i];
                 i++;
             }
             while(marked[rev]);
             //make a new kernel
             k = new Kernel(kcounter);
             //sort topologically from the unmarked vertex, adding to the reverse list
-            topoSortDFT(rev,marked,topoList,index);
-            //kadder starts from the previous searches' latest addition and goes until there are no more vertices on the list
-            while(topoList[kadder]!=null){
-                k.addVertex(topoList[kadder]); //add vertex to the current kernel
+            index = dfs.finishOrder(rev,marked,topoList,index);
+            //kadder starts from the previous searches' latest addition and goes until it reaches the newest addition
+            while(kadder>index){
+                k.addVertex(vertex(topoList[kadder])); //add vertex to the current kernel
                 kadder--; //decrement
-                if(kadder<0){ //when it hits below zero, you're done
-                    break;
-                }
             }
             kcounter++; //increment k counter
             kernels[kindex] = k; //add current kernel to kernel array
             kindex--; //decrement k index
         }
-
+        searchDepth = Math.max(searchDepth, dfs.maxDepth());
         return kernels;
     }
 
     public void printgraph(){
         for(int i = 0; i<numVertices; i++){
-            System.out.println("vertex " + vertices[i].task + " has the following edges:");
-            for(int j = 0; j<vertices[i].edges.size(); j++){
-                System.out.println(vertices[i].edges.get(j).toString());
+            System.out.println("vertex " + vertex(i).task + " has the following edges:");
+            ArrayList<Edge> edges = vertex(i).getEdges();
+            for(int j = 0; j<edges.size(); j++){
+                System.out.println(edges.get(j).toString());
             }
         }
     }
@@ -0,0 +1,647 @@
+import java.util.Arrays;
+/**
+ * The DynamicKernels class keeps the kernels of a directed graph, and a topological order of them, up to date as edges are
+ * added and removed. The kernels are kept in a linked list in topological order, and each one has a numeric label that
+ * increases along the list.
+ *
+ * An added edge that goes backwards in the order is handled with the Pearce-Kelly algorithm on kernels: only the kernels
+ * labelled between its two ends are searched. If the end of the edge can reach its start, every kernel on a path between
+ * them is merged into one. A removed edge inside a kernel only re-splits that kernel, and the pieces take its place in
+ * the list. A removed edge between two kernels changes nothing.
+ */
+public class DynamicKernels
+{
+    private static final long GAP = 1L<<20; //the space between neighboring labels when the list is relabelled
+    private static final int NONE = -1; //the end of the linked list
+
+    private int numVertices; //the number of vertices
+    private int[][] out; //the vertices each vertex has an edge to, with repeats for repeated edges
+    private int[] outSize; //the number of edges leaving each vertex
+    private int[][] in; //the vertices each vertex has an edge from
+    private int[] inSize; //the number of edges into each vertex
+    private int[] comp; //the kernel each vertex is in
+    private int[] slot; //where each vertex is in its kernel's member list
+
+    private int[][] members; //the vertices in each kernel
+    private int[] size; //the number of vertices in each kernel
+    private long[] label; //the label of each kernel, which increases along the list
+    private int[] next; //the kernel after each kernel in the list
+    private int[] prev; //the kernel before each kernel in the list
+    private int head; //the first kernel in the list
+    private int tail; //the last kernel in the list
+    private int numKernels; //the number of kernels in the list
+    private int[] freeIds; //kernel ids that are no longer used
+    private int numFree;
+    private int idCount; //the number of kernel ids handed out, used or not
+    private int selfLoops; //the number of edges from a vertex to itself
+    private int bigKernels; //the number of kernels with more than one vertex
+
+    private int[] markF; //the search each kernel was last reached forward in
+    private int[] markB; //the search each kernel was last reached backward in
+    private int epoch; //the number of the current search
+    private int[] stack; //the kernels waiting to be searched from
+    private int[] forward; //the kernels reached forward from the end of the new edge
+    private int numForward;
+    private int[] backward; //the kernels reached backward from the start of the new edge
+    private int numBackward;
+
+    /**
+     * Creates the kernels of a graph, starting from a single pass of Tarjan's algorithm.
+     *
+     * @param g     the graph
+     */
+    public DynamicKernels(CompactGraph g){
+        int n = g.numVertices;
+        int capacity = Math.max(16, n);
+        out = new int[capacity][];
+        in = new int[capacity][];
+        outSize = new int[capacity];
+        inSize = new int[capacity];
+        comp = new int[capacity];
+        slot = new int[capacity];
+        members = new int[capacity][];
+        size = new int[capacity];
+        label = new long[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        freeIds = new int[capacity];
+        markF = new int[capacity];
+        markB = new int[capacity];
+        stack = new int[capacity];
+        forward = new int[capacity];
+        backward = new int[capacity];
+        head = NONE;
+        tail = NONE;
+
+        for(int v = 0; v<n; v++){
+            out[v] = new int[Math.max(2, g.outDegree(v))];
+            in[v] = new int[2];
+        }
+        numVertices = n;
+        for(int v = 0; v<n; v++){
+            for(int e = g.begin(v); e<g.end(v); e++){
+                link(v, g.target(e));
+                if(g.target(e) == v){
+                    selfLoops++;
+                }
+            }
+        }
+
+        int[] component = new int[n];
+        int count = new DepthFirstSearch(g).strongComponents(component);
+        idCount = count;
+        for(int c = count-1; c>=0; c--){ //the components in topological order are the highest number down to zero
+            members[c] = new int[2];
+            append(c);
+        }
+        for(int v = 0; v<n; v++){
+            join(v, component[v]);
+            if(size[component[v]] == 2){
+                bigKernels++;
+            }
+        }
+    }
+
+    /**
+     * The addVertex method adds a vertex in a kernel of its own at the end of the order. Its id is the number of
+     * vertices before it.
+     */
+    public void addVertex(){
+        if(numVertices == out.length){ //if the vertex arrays are full, double their size
+            int capacity = numVertices*2;
+            out = Arrays.copyOf(out, capacity);
+            in = Arrays.copyOf(in, capacity);
+            outSize = Arrays.copyOf(outSize, capacity);
+            inSize = Arrays.copyOf(inSize, capacity);
+            comp = Arrays.copyOf(comp, capacity);
+            slot = Arrays.copyOf(slot, capacity);
+        }
+        int v = numVertices++;
+        out[v] = new int[2];
+        in[v] = new int[2];
+        outSize[v] = 0;
+        inSize[v] = 0;
+        int c = newKernel();
+        append(c);
+        join(v, c);
+    }
+
+    /**
+     * The addEdge method adds an edge, merging kernels and moving them in the order as needed.
+     *
+     * @param x     the starting vertex
+     * @param y     the ending vertex
+     * @return      true if the edge closed a cycle, either by merging kernels or from a vertex to itself
+     */
+    public boolean addEdge(int x, int y){
+        link(x, y);
+        if(x == y){ //a task that depends on itself
+            selfLoops++;
+            return true;
+        }
+        int cx = comp[x];
+        int cy = comp[y];
+        if(cx == cy || label[cx] < label[cy]){ //the edge is inside a kernel or already goes forward
+            return false;
+        }
+
+        long lb = label[cy];
+        long ub = label[cx];
+        epoch++;
+        searchForward(cy, ub);
+        searchBackward(cx, lb);
+        boolean cycle = markF[cx] == epoch; //the end of the new edge can reach its start
+
+        int[] slots = new int[numForward+numBackward]; //the kernels whose places in the list are handed back out
+        int k = 0;
+        for(int i = 0; i<numBackward; i++){
+            slots[k++] = backward[i];
+        }
+        for(int i = 0; i<numForward; i++){
+            if(markB[forward[i]] != epoch){ //kernels reached both ways are already in the list
+                slots[k++] = forward[i];
+            }
+        }
+        sortByLabel(slots, k);
+        sortByLabel(backward, numBackward);
+        sortByLabel(forward, numForward);
+
+        //everything that reaches the start of the edge takes the lowest places, then what is on a cycle, and what the
+        //end reaches takes the highest places, so nothing moves past a kernel that wasn't searched
+        int[] seq = new int[k];
+        int[] at = new int[k]; //the slot each kernel in seq goes in
+        int len = 0;
+        for(int i = 0; i<numBackward; i++){
+            if(markF[backward[i]] != epoch){
+                at[len] = len;
+                seq[len++] = backward[i];
+            }
+        }
+        if(cycle){
+            at[len] = len;
+            seq[len++] = merge();
+        }
+        int top = k-1;
+        for(int i = numForward-1; i>=0; i--){
+            if(markB[forward[i]] != epoch){
+                at[len] = top--;
+                seq[len++] = forward[i];
+            }
+        }
+        reverse(seq, at, len-(k-1-top), len);
+        relink(slots, k, seq, at, len);
+        return cycle;
+    }
+
+    /**
+     * The removeEdge method removes one copy of an edge, splitting its kernel if the edge was inside one.
+     *
+     * @param x     the starting vertex
+     * @param y     the ending vertex
+     * @return      true if the edge was in the graph, and false otherwise
+     */
+    public boolean removeEdge(int x, int y){
+        if(!unlink(x, y)){
+            return false;
+        }
+        if(x == y){
+            selfLoops--;
+        }
+        else if(comp[x] == comp[y]){
+            split(comp[x]);
+        }
+        return true;
+    }
+
+    /**
+     * The removeVertex method removes a vertex and all of its edges. The last vertex takes over the removed vertex's id,
+     * the same way the directed graph fills the gap in its vertices array.
+     *
+     * @param v     the vertex to remove
+     */
+    public void removeVertex(int v){
+        while(outSize[v] > 0){
+            removeEdge(v, out[v][outSize[v]-1]);
+        }
+        while(inSize[v] > 0){
+            removeEdge(in[v][inSize[v]-1], v);
+        }
+        int c = comp[v]; //v is now in a kernel of its own
+        unlinkKernel(c);
+        size[c] = 0;
+        freeIds[numFree++] = c;
+
+        int last = numVertices-1;
+        if(v != last){ //move the last vertex into v's spot
+            out[v] = out[last];
+            outSize[v] = outSize[last];
+            in[v] = in[last];
+            inSize[v] = inSize[last];
+            for(int k = 0; k<outSize[v]; k++){
+                rename(in, inSize, out[v][k] == last ? v : out[v][k], last, v);
+            }
+            for(int k = 0; k<inSize[v]; k++){
+                rename(out, outSize, in[v][k] == last ? v : in[v][k], last, v);
+            }
+            comp[v] = comp[last];
+            slot[v] = slot[last];
+            members[comp[v]][slot[v]] = v;
+        }
+        out[last] = null;
+        in[last] = null;
+        numVertices--;
+    }
+
+    /**
+     * The hasCycle method returns whether the graph has a cycle, either a kernel with more than one vertex or a vertex
+     * with an edge to itself.
+     */
+    public boolean hasCycle(){
+        return bigKernels > 0 || selfLoops > 0;
+    }
+
+    /**
+     * The kernels method returns the vertices of each kernel, with the kernels in topological order.
+     */
+    public int[][] kernels(){
+        int[][] result = new int[numKernels][];
+        int i = 0;
+        for(int c = head; c != NONE; c = next[c]){
+            result[i++] = Arrays.copyOf(members[c], size[c]);
+        }
+        return result;
+    }
+
+    /**
+     * The searchForward method finds every kernel reachable from kernel cy whose label is at most ub.
+     */
+    private void searchForward(int cy, long ub){
+        numForward = 0;
+        int top = 0;
+        stack[top++] = cy;
+        markF[cy] = epoch;
+        while(top > 0){
+            int c = stack[--top];
+            forward[numForward++] = c;
+            for(int i = 0; i<size[c]; i++){
+                int u = members[c][i];
+                for(int k = 0; k<outSize[u]; k++){
+                    int d = comp[out[u][k]];
+                    if(markF[d] != epoch && label[d] <= ub){
+                        markF[d] = epoch;
+                        stack[top++] = d;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The searchBackward method finds every kernel that can reach kernel cx and whose label is at least lb.
+     */
+    private void searchBackward(int cx, long lb){
+        numBackward = 0;
+        int top = 0;
+        stack[top++] = cx;
+        markB[cx] = epoch;
+        while(top > 0){
+            int c = stack[--top];
+            backward[numBackward++] = c;
+            for(int i = 0; i<size[c]; i++){
+                int u = members[c][i];
+                for(int k = 0; k<inSize[u]; k++){
+                    int d = comp[in[u][k]];
+                    if(markB[d] != epoch && label[d] >= lb){
+                        markB[d] = epoch;
+                        stack[top++] = d;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The merge method merges every kernel reached by both searches into the largest of them.
+     *
+     * @return  the merged kernel, which is no longer in the list
+     */
+    private int merge(){
+        int into = NONE;
+        for(int i = 0; i<numForward; i++){
+            int c = forward[i];
+            if(markB[c] == epoch && (into == NONE || size[c] > size[into])){
+                into = c;
+            }
+        }
+        if(size[into] > 1){
+            bigKernels--;
+        }
+        for(int i = 0; i<numForward; i++){
+            int c = forward[i];
+            if(markB[c] != epoch || c == into){
+                continue;
+            }
+            if(size[c] > 1){
+                bigKernels--;
+            }
+            for(int k = 0; k<size[c]; k++){
+                join(members[c][k], into);
+            }
+            size[c] = 0;
+            freeIds[numFree++] = c;
+        }
+        bigKernels++;
+        return into;
+    }
+
+    /**
+     * The split method runs Tarjan's algorithm on the vertices of one kernel and the edges between them. If the kernel
+     * falls apart, the pieces take its place in the list in topological order.
+     */
+    private void split(int c){
+        int k = size[c];
+        int[] verts = Arrays.copyOf(members[c], k);
+        int m = 0;
+        for(int i = 0; i<k; i++){
+            int u = verts[i];
+            for(int j = 0; j<outSize[u]; j++){
+                if(comp[out[u][j]] == c){
+                    m++;
+                }
+            }
+        }
+        int[] from = new int[m];
+        int[] to = new int[m];
+        m = 0;
+        for(int i = 0; i<k; i++){ //number the kernel's vertices by their spot in its member list
+            int u = verts[i];
+            for(int j = 0; j<outSize[u]; j++){
+                int w = out[u][j];
+                if(comp[w] == c){
+                    from[m] = i;
+                    to[m] = slot[w];
+                    m++;
+                }
+            }
+        }
+        int[] component = new int[k];
+        int count = new DepthFirstSearch(CompactGraph.build(new String[k], from, to, m)).strongComponents(component);
+        if(count == 1){ //still strongly connected
+            return;
+        }
+
+        int[] pieces = new int[count];
+        pieces[count-1] = c; //the first piece in topological order keeps the kernel's id
+        for(int p = 0; p<count-1; p++){
+            pieces[p] = newKernel();
+        }
+        size[c] = 0;
+        bigKernels--;
+        for(int i = 0; i<k; i++){
+            join(verts[i], pieces[component[i]]);
+        }
+        for(int p = 0; p<count; p++){
+            if(size[pieces[p]] > 1){
+                bigKernels++;
+            }
+        }
+        int after = c;
+        for(int p = count-2; p>=0; p--){ //the rest of the pieces go right after it
+            insertAfter(after, pieces[p]);
+            after = pieces[p];
+        }
+    }
+
+    /**
+     * The reverse method reverses part of seq and the matching part of at.
+     */
+    private static void reverse(int[] seq, int[] at, int from, int to){
+        for(int i = from, j = to-1; i<j; i++, j--){
+            int t = seq[i];
+            seq[i] = seq[j];
+            seq[j] = t;
+            t = at[i];
+            at[i] = at[j];
+            at[j] = t;
+        }
+    }
+
+    /**
+     * The relink method hands the places in the list held by the slot kernels out to the kernels in seq. The slot kernels
+     * are sorted by label, and at says which slot each kernel in seq goes in, in increasing order. Slots that aren't
+     * handed out are dropped from the list.
+     */
+    private void relink(int[] slots, int k, int[] seq, int[] at, int len){
+        long[] labels = new long[k];
+        int[] anchor = new int[k]; //the kernel before each slot that isn't one of the slots itself
+        for(int i = 0; i<k; i++){
+            labels[i] = label[slots[i]];
+            markF[slots[i]] = -epoch; //mark the slots so the walk below can step over them
+        }
+        for(int i = 0; i<k; i++){
+            int p = prev[slots[i]];
+            while(p != NONE && markF[p] == -epoch){
+                p = prev[p];
+            }
+            anchor[i] = p;
+        }
+        for(int i = 0; i<k; i++){
+            unlinkKernel(slots[i]);
+        }
+        int last = NONE;
+        for(int i = 0; i<len; i++){
+            int c = seq[i];
+            int after = (i > 0 && anchor[at[i]] == anchor[at[i-1]]) ? last : anchor[at[i]];
+            label[c] = labels[at[i]];
+            linkAfter(after, c);
+            last = c;
+        }
+    }
+
+    /**
+     * The insertAfter method places a kernel right after another one in the list, with a label between theirs. If there
+     * is no room for a label, the whole list is relabelled first.
+     */
+    private void insertAfter(int after, int c){
+        long lo = label[after];
+        long hi = next[after] == NONE ? lo+2*GAP : label[next[after]];
+        if(hi-lo < 2){
+            relabel();
+            lo = label[after];
+            hi = next[after] == NONE ? lo+2*GAP : label[next[after]];
+        }
+        label[c] = lo+(hi-lo)/2;
+        linkAfter(after, c);
+    }
+
+    /**
+     * The relabel method spreads the labels of every kernel in the list evenly apart.
+     */
+    private void relabel(){
+        long l = 0;
+        for(int c = head; c != NONE; c = next[c]){
+            label[c] = l;
+            l += GAP;
+        }
+    }
+
+    /**
+     * The append method places a kernel at the end of the list.
+     */
+    private void append(int c){
+        label[c] = tail == NONE ? 0 : label[tail]+GAP;
+        linkAfter(tail, c);
+    }
+
+    /**
+     * The linkAfter method links a kernel into the list right after another one, or at the front if there is none.
+     */
+    private void linkAfter(int after, int c){
+        prev[c] = after;
+        next[c] = after == NONE ? head : next[after];
+        if(next[c] == NONE){
+            tail = c;
+        }
+        else{
+            prev[next[c]] = c;
+        }
+        if(after == NONE){
+            head = c;
+        }
+        else{
+            next[after] = c;
+        }
+        numKernels++;
+    }
+
+    /**
+     * The unlinkKernel method takes a kernel out of the list.
+     */
+    private void unlinkKernel(int c){
+        if(prev[c] == NONE){
+            head = next[c];
+        }
+        else{
+            next[prev[c]] = next[c];
+        }
+        if(next[c] == NONE){
+            tail = prev[c];
+        }
+        else{
+            prev[next[c]] = prev[c];
+        }
+        numKernels--;
+    }
+
+    /**
+     * The newKernel method returns an empty kernel, reusing an old id if there is one.
+     */
+    private int newKernel(){
+        int c;
+        if(numFree > 0){
+            c = freeIds[--numFree];
+        }
+        else{
+            c = idCount++;
+            if(c == members.length){ //if the kernel arrays are full, double their size
+                int capacity = c*2;
+                members = Arrays.copyOf(members, capacity);
+                size = Arrays.copyOf(size, capacity);
+                label = Arrays.copyOf(label, capacity);
+                next = Arrays.copyOf(next, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+                freeIds = Arrays.copyOf(freeIds, capacity);
+                markF = Arrays.copyOf(markF, capacity);
+                markB = Arrays.copyOf(markB, capacity);
+                stack = Arrays.copyOf(stack, capacity);
+                forward = Arrays.copyOf(forward, capacity);
+                backward = Arrays.copyOf(backward, capacity);
+            }
+        }
+        if(members[c] == null){
+            members[c] = new int[2];
+        }
+        size[c] = 0;
+        return c;
+    }
+
+    /**
+     * The join method adds a vertex to the end of a kernel's member list.
+     */
+    private void join(int v, int c){
+        if(size[c] == members[c].length){
+            members[c] = Arrays.copyOf(members[c], size[c]*2);
+        }
+        comp[v] = c;
+        slot[v] = size[c];
+        members[c][size[c]++] = v;
+    }
+
+    /**
+     * The sortByLabel method sorts a list of kernels by their labels.
+     */
+    private void sortByLabel(int[] list, int count){
+        long[] keys = new long[count];
+        for(int i = 0; i<count; i++){
+            keys[i] = label[list[i]];
+        }
+        Arrays.sort(keys);
+        int[] copy = Arrays.copyOf(list, count);
+        for(int i = 0; i<count; i++){ //labels are all different, so each kernel's label says where it goes
+            list[Arrays.binarySearch(keys, label[copy[i]])] = copy[i];
+        }
+    }
+
+    /**
+     * The link method records an edge in both vertices' lists, doubling a list when it is full.
+     */
+    private void link(int x, int y){
+        if(outSize[x] == out[x].length){
+            out[x] = Arrays.copyOf(out[x], outSize[x]*2);
+        }
+        out[x][outSize[x]++] = y;
+        if(inSize[y] == in[y].length){
+            in[y] = Arrays.copyOf(in[y], inSize[y]*2);
+        }
+        in[y][inSize[y]++] = x;
+    }
+
+    /**
+     * The unlink method removes one copy of an edge from both vertices' lists.
+     *
+     * @return  true if the edge was found, and false otherwise
+     */
+    private boolean unlink(int x, int y){
+        int i = indexOf(out[x], outSize[x], y);
+        if(i < 0){
+            return false;
+        }
+        out[x][i] = out[x][--outSize[x]];
+        int j = indexOf(in[y], inSize[y], x);
+        in[y][j] = in[y][--inSize[y]];
+        return true;
+    }
+
+    /**
+     * The indexOf method returns where a vertex is in a list, or -1 if it isn't there.
+     */
+    private static int indexOf(int[] list, int count, int v){
+        for(int i = 0; i<count; i++){
+            if(list[i] == v){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The rename method replaces every copy of one vertex with another in a vertex's edge list.
+     */
+    private static void rename(int[][] lists, int[] sizes, int u, int from, int to){
+        for(int i = 0; i<sizes[u]; i++){
+            if(lists[u][i] == from){
+                lists[u][i] = to;
+            }
+        }
+    }
+}
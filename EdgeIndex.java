@@ -0,0 +1,165 @@
+import java.util.Arrays;
+/**
+ * The EdgeIndex class keeps, for each vertex, the positions in a directed graph's edge arrays of the edges leaving it and
+ * of the edges entering it, so the edges of one vertex can be found without looking through every edge. Each list is an
+ * int array that doubles when it is full, made when the vertex gets its first edge, and the order of a list doesn't
+ * matter.
+ */
+public class EdgeIndex
+{
+    private int[][] out; //the positions of the edges leaving each vertex, or null if it has none yet
+    private int[] outSize; //the number of edges leaving each vertex
+    private int[][] in; //the positions of the edges entering each vertex, or null if it has none yet
+    private int[] inSize; //the number of edges entering each vertex
+
+    /**
+     * Creates an index of the edges held in a pair of edge arrays, making each vertex's lists exactly big enough.
+     *
+     * @param n     the number of vertices
+     * @param from  the starting vertex of each edge
+     * @param to    the ending vertex of each edge
+     * @param m     the number of edges
+     */
+    public EdgeIndex(int n, int[] from, int[] to, int m){
+        int capacity = Math.max(16, n);
+        out = new int[capacity][];
+        in = new int[capacity][];
+        outSize = new int[capacity];
+        inSize = new int[capacity];
+        for(int e = 0; e<m; e++){ //count each vertex's edges first
+            outSize[from[e]]++;
+            inSize[to[e]]++;
+        }
+        for(int v = 0; v<n; v++){
+            out[v] = outSize[v] > 0 ? new int[outSize[v]] : null;
+            in[v] = inSize[v] > 0 ? new int[inSize[v]] : null;
+        }
+        Arrays.fill(outSize, 0);
+        Arrays.fill(inSize, 0);
+        for(int e = 0; e<m; e++){
+            out[from[e]][outSize[from[e]]++] = e;
+            in[to[e]][inSize[to[e]]++] = e;
+        }
+    }
+
+    /**
+     * The ensureVertices method makes room for the given number of vertices.
+     */
+    public void ensureVertices(int n){
+        if(n > out.length){ //double the arrays until they fit
+            int capacity = Math.max(n, out.length*2);
+            out = Arrays.copyOf(out, capacity);
+            in = Arrays.copyOf(in, capacity);
+            outSize = Arrays.copyOf(outSize, capacity);
+            inSize = Arrays.copyOf(inSize, capacity);
+        }
+    }
+
+    /**
+     * The add method records the edge at a position in the lists of both of its vertices.
+     *
+     * @param e     the position of the edge
+     * @param start the starting vertex
+     * @param end   the ending vertex
+     */
+    public void add(int e, int start, int end){
+        out[start] = append(out[start], outSize[start]++, e);
+        in[end] = append(in[end], inSize[end]++, e);
+    }
+
+    /**
+     * The remove method takes the edge at a position out of the lists of both of its vertices.
+     *
+     * @param e     the position of the edge
+     * @param start the starting vertex
+     * @param end   the ending vertex
+     */
+    public void remove(int e, int start, int end){
+        int i = indexOf(out[start], outSize[start], e);
+        out[start][i] = out[start][--outSize[start]];
+        int j = indexOf(in[end], inSize[end], e);
+        in[end][j] = in[end][--inSize[end]];
+    }
+
+    /**
+     * The move method records that the edge at one position has moved to another.
+     *
+     * @param from  the old position of the edge
+     * @param to    the new position of the edge
+     * @param start the starting vertex
+     * @param end   the ending vertex
+     */
+    public void move(int from, int to, int start, int end){
+        out[start][indexOf(out[start], outSize[start], from)] = to;
+        in[end][indexOf(in[end], inSize[end], from)] = to;
+    }
+
+    /**
+     * The moveVertex method gives one vertex's lists to another vertex, whose own lists must be empty, and leaves the
+     * first vertex without edges.
+     */
+    public void moveVertex(int from, int to){
+        out[to] = out[from];
+        outSize[to] = outSize[from];
+        in[to] = in[from];
+        inSize[to] = inSize[from];
+        out[from] = null;
+        outSize[from] = 0;
+        in[from] = null;
+        inSize[from] = 0;
+    }
+
+    /**
+     * The outDegree method returns the number of edges leaving a vertex.
+     */
+    public int outDegree(int v){
+        return outSize[v];
+    }
+
+    /**
+     * The outEdge method returns the position of one of the edges leaving a vertex, from 0 up to outDegree(v).
+     */
+    public int outEdge(int v, int i){
+        return out[v][i];
+    }
+
+    /**
+     * The inDegree method returns the number of edges entering a vertex.
+     */
+    public int inDegree(int v){
+        return inSize[v];
+    }
+
+    /**
+     * The inEdge method returns the position of one of the edges entering a vertex, from 0 up to inDegree(v).
+     */
+    public int inEdge(int v, int i){
+        return in[v][i];
+    }
+
+    /**
+     * The append method puts a position at the end of a list, making the list or doubling it if it is full.
+     */
+    private static int[] append(int[] list, int count, int e){
+        if(list == null){
+            list = new int[2];
+        }
+        else if(count == list.length){
+            list = Arrays.copyOf(list, count*2);
+        }
+        list[count] = e;
+        return list;
+    }
+
+    /**
+     * The indexOf method returns where a position is in a list.
+     */
+    private static int indexOf(int[] list, int count, int e){
+        for(int i = 0; i<count; i++){
+            if(list[i] == e){
+                return i;
+            }
+        }
+        throw new IllegalStateException("edge " + e + " isn't in the index");
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+/**
+ * The EdgeSet class holds a set of directed edges between vertex ids, packing each edge into a single long key and
+ * storing the keys in an open-addressing hash table with linear probing. Adding, finding, and removing an edge take
+ * constant time on average, and no object is created per edge.
+ */
+public class EdgeSet
+{
+    private static final long EMPTY = -1L; //marks a free spot in the table, which no real edge packs into
+
+    private long[] keys; //the table of packed edges, with a power of two length
+    private int size; //the number of edges in the set
+    private int mask; //the length of the table minus one
+
+    /**
+     * Creates an edge set with room for the given number of edges before it has to grow.
+     */
+    public EdgeSet(int expected){
+        int capacity = Integer.highestOneBit(Math.max(16, expected*2-1))*2; //keeps the table at most half full
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity-1;
+    }
+
+    /**
+     * The add method adds an edge to the set.
+     *
+     * @param start     the id of the starting vertex
+     * @param end       the id of the ending vertex
+     * @return          true if the edge was added, false if it was already in the set
+     */
+    public boolean add(int start, int end){
+        long key = pack(start,end);
+        int i = spot(key);
+        while(keys[i] != EMPTY){
+            if(keys[i] == key){
+                return false;
+            }
+            i = (i+1) & mask;
+        }
+        keys[i] = key;
+        size++;
+        if(size*2 > keys.length){
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * The contains method returns whether an edge is in the set.
+     */
+    public boolean contains(int start, int end){
+        long key = pack(start,end);
+        for(int i = spot(key); keys[i] != EMPTY; i = (i+1) & mask){
+            if(keys[i] == key){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The remove method takes an edge out of the set. The keys after it in the same run are shifted back so that every
+     * key can still be found from its own spot.
+     *
+     * @return  true if the edge was in the set, false otherwise
+     */
+    public boolean remove(int start, int end){
+        long key = pack(start,end);
+        int i = spot(key);
+        while(keys[i] != key){
+            if(keys[i] == EMPTY){
+                return false;
+            }
+            i = (i+1) & mask;
+        }
+        int gap = i;
+        for(int j = (i+1) & mask; keys[j] != EMPTY; j = (j+1) & mask){
+            int home = spot(keys[j]);
+            if(((j-home) & mask) >= ((j-gap) & mask)){ //the key at j can move back into the gap
+                keys[gap] = keys[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * The size method returns the number of edges in the set.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * The bytes method returns the number of bytes the table takes up.
+     */
+    public long bytes(){
+        return keys.length*8L;
+    }
+
+    /**
+     * The grow method doubles the table and puts every key back in.
+     */
+    private void grow(){
+        long[] old = keys;
+        keys = new long[old.length*2];
+        Arrays.fill(keys, EMPTY);
+        mask = keys.length-1;
+        for(long key : old){
+            if(key != EMPTY){
+                int i = spot(key);
+                while(keys[i] != EMPTY){
+                    i = (i+1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+
+    /**
+     * The pack method packs an edge into a long, with the starting vertex in the high half.
+     */
+    private static long pack(int start, int end){
+        return ((long)start << 32) | (end & 0xffffffffL);
+    }
+
+    /**
+     * The spot method returns where in the table a key starts looking, mixing its bits so that neighboring ids spread out.
+     */
+    private int spot(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32)) & mask;
+    }
+}
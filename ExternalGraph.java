@@ -0,0 +1,425 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+/**
+ * The ExternalGraph class holds a graph whose edges are kept on disk instead of in the heap, for graphs with more edges
+ * than fit in memory. The vertices still live in memory, a few ints and one long each, but the edges only take up as
+ * much memory as the budget allows. While the graph is built, edges are gathered in a buffer, and each time the buffer
+ * fills it is sorted by starting vertex and spilled to disk as a run. Once every edge is in, the runs are merged in one
+ * sequential pass into a file holding the targets of every edge grouped by starting vertex, the same layout as a
+ * CompactGraph. Tarjan's algorithm then runs over that file, reading it in large blocks through a cache that holds as
+ * many blocks as the budget allows.
+ */
+public class ExternalGraph implements Closeable
+{
+    private static final int BLOCK_BITS = 10; //each cached block holds 2^10 edge targets, one 4KB page
+    private static final int BLOCK_SIZE = 1<<BLOCK_BITS;
+    private static final int IO_BUFFER = 1<<16; //the bytes read or written at a time while merging
+
+    public final int numVertices; //the number of vertices in the graph
+    public final long numEdges; //the number of edges in the graph
+    private final long[] offsets; //where each vertex's edges start in the targets file, with one extra entry at the end
+    private final File file; //the targets file
+    private final FileChannel targets; //reads the targets file
+    private final BlockCache cache; //the blocks of the targets file that were read last
+    private boolean cyclic; //whether the last search for strong components found a cycle
+    private int maxDepth; //the most frames the stack held at once in the last search
+
+    /**
+     * Creates an external graph on top of a merged targets file.
+     */
+    private ExternalGraph(int numVertices, long[] offsets, File file, long budget) throws IOException{
+        this.numVertices = numVertices;
+        this.offsets = offsets;
+        this.numEdges = offsets[numVertices];
+        this.file = file;
+        targets = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        cache = new BlockCache((int)Math.max(2, Math.min(Integer.MAX_VALUE, budget/(BLOCK_SIZE*4L))));
+    }
+
+    /**
+     * The begin method returns the position of the first edge leaving a vertex.
+     */
+    public long begin(int v){
+        return offsets[v];
+    }
+
+    /**
+     * The end method returns the position just past the last edge leaving a vertex.
+     */
+    public long end(int v){
+        return offsets[v+1];
+    }
+
+    /**
+     * The target method returns the vertex at the end of an edge, reading its block of the targets file if it isn't
+     * cached.
+     *
+     * @param e     the position of the edge
+     * @return      the vertex id the edge leads to
+     */
+    public int target(long e){
+        try{
+            return cache.block(e >>> BLOCK_BITS)[(int)(e & (BLOCK_SIZE-1))];
+        }
+        catch(IOException ex){
+            throw new IllegalStateException("could not read the edges from " + file, ex);
+        }
+    }
+
+    /**
+     * The strongComponents method splits the whole graph into its strongly connected components with a single pass of
+     * Tarjan's algorithm, numbering them the same way DepthFirstSearch does, so the components in topological order are
+     * the highest number down to zero. Each vertex's edges are read in order, so while a search goes down a vertex's edges
+     * the reads are sequential.
+     *
+     * @param component     an array to fill with the component number of each vertex
+     * @return              the number of components
+     */
+    public int strongComponents(int[] component){
+        int n = numVertices;
+        int[] order = new int[n]; //the order each vertex was reached in, starting at 1, or 0 if it hasn't been reached
+        int[] low = new int[n]; //the earliest reached vertex on the stack that each vertex can get back to
+        int[] found = new int[n]; //the vertices that have been reached but not yet put in a component
+        int[] stack = new int[n]; //the vertex held by each frame of the stack
+        long[] next = new long[n]; //the position of the next edge each frame will explore
+        int numFound = 0;
+        int counter = 0;
+        int count = 0;
+        cyclic = false;
+        maxDepth = 0;
+        Arrays.fill(component, -1);
+
+        for(int root = 0; root<n; root++){
+            if(order[root]!=0){ //if it has already been reached, carry on
+                continue;
+            }
+            int top = 0;
+            stack[0] = root;
+            next[0] = begin(root);
+            order[root] = low[root] = ++counter;
+            found[numFound++] = root;
+            maxDepth = Math.max(maxDepth, 1);
+            while(top>=0){
+                int v = stack[top];
+                if(next[top]<end(v)){ //explore the next neighbor
+                    int w = target(next[top]++);
+                    if(w==v){ //a task that depends on itself
+                        cyclic = true;
+                    }
+                    if(order[w]==0){ //reach it for the first time
+                        top++;
+                        if(top>=maxDepth){
+                            maxDepth = top+1;
+                        }
+                        stack[top] = w;
+                        next[top] = begin(w);
+                        order[w] = low[w] = ++counter;
+                        found[numFound++] = w;
+                    }
+                    else if(component[w]<0 && order[w]<low[v]){ //it is still waiting for a component
+                        low[v] = order[w];
+                    }
+                }
+                else{ //every neighbor has been explored
+                    if(low[v]==order[v]){ //v is the first vertex reached in its component, so the component is finished
+                        int size = 0;
+                        int w;
+                        do{
+                            w = found[--numFound];
+                            component[w] = count;
+                            size++;
+                        }
+                        while(w!=v);
+                        if(size>1){
+                            cyclic = true;
+                        }
+                        count++;
+                    }
+                    top--;
+                    if(top>=0 && low[v]<low[stack[top]]){ //pass how far back v can reach on to its parent
+                        low[stack[top]] = low[v];
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The foundCycle method returns whether the last call to strongComponents found a cycle.
+     */
+    public boolean foundCycle(){
+        return cyclic;
+    }
+
+    /**
+     * The maxDepth method returns the most vertices that were on the stack at once during the last call to
+     * strongComponents, which is how deep a recursive search would have had to go.
+     */
+    public int maxDepth(){
+        return maxDepth;
+    }
+
+    /**
+     * The blocksRead method returns the number of blocks read from the targets file so far.
+     */
+    public long blocksRead(){
+        return cache.reads;
+    }
+
+    /**
+     * The close method closes and deletes the targets file.
+     */
+    public void close() throws IOException{
+        targets.close();
+        file.delete();
+    }
+
+    /**
+     * The BlockCache class keeps the most recently used blocks of the targets file, reusing the array of the block that
+     * was used longest ago when a new one is read.
+     */
+    private class BlockCache{
+        private final LinkedHashMap<Long,int[]> blocks; //the cached blocks by index, ordered by access, least recent first
+        private final int capacity; //the most blocks kept
+        private final ByteBuffer buffer; //the bytes of the block being read
+        private long reads; //the number of blocks read from the file
+
+        BlockCache(int capacity){
+            blocks = new LinkedHashMap<Long,int[]>(16, 0.75f, true);
+            this.capacity = capacity;
+            buffer = ByteBuffer.allocateDirect(BLOCK_SIZE*4);
+        }
+
+        int[] block(long index) throws IOException{
+            int[] block = blocks.get(index); //moves the block to the back of the access order, even if it was just used
+            if(block == null){
+                block = blocks.size() < capacity ? new int[BLOCK_SIZE] : evict();
+                buffer.clear();
+                long position = index*BLOCK_SIZE*4;
+                while(buffer.hasRemaining() && targets.read(buffer, position+buffer.position()) > 0){
+                }
+                buffer.flip();
+                buffer.asIntBuffer().get(block, 0, buffer.remaining()/4);
+                reads++;
+                blocks.put(index, block);
+            }
+            return block;
+        }
+
+        /**
+         * The evict method drops the block used longest ago and returns its array for the next block to be read into.
+         */
+        private int[] evict(){
+            Iterator<Map.Entry<Long,int[]>> eldest = blocks.entrySet().iterator();
+            Map.Entry<Long,int[]> entry = eldest.next();
+            eldest.remove();
+            return entry.getValue();
+        }
+    }
+
+    /**
+     * The Builder class gathers the edges of an external graph and spills them to disk in sorted runs.
+     */
+    public static class Builder
+    {
+        private final long budget; //the bytes of memory the edges may take up
+        private final File dir; //the directory the runs are spilled into
+        private final int limit; //the most edges the buffer may grow to hold
+        private long[] buffer; //the edges gathered since the last spill, each packed into a long
+        private int size; //the number of edges in the buffer
+        private final ArrayList<File> runs; //the runs spilled so far
+        private long numEdges; //the number of edges added so far
+
+        /**
+         * Creates a builder that uses about the given number of bytes for edges, and spills into the given directory.
+         */
+        public Builder(long budget, File dir){
+            this.budget = budget;
+            this.dir = dir;
+            limit = (int)Math.max(1024, Math.min(Integer.MAX_VALUE-8, budget/8));
+            buffer = new long[1024]; //grows up to the limit, so a small graph never takes up the whole budget
+            runs = new ArrayList<File>();
+        }
+
+        /**
+         * The addEdge method adds an edge, spilling the buffer first if it is full.
+         */
+        public void addEdge(int start, int end) throws IOException{
+            if(size == buffer.length){
+                if(buffer.length < limit){
+                    buffer = Arrays.copyOf(buffer, (int)Math.min(limit, buffer.length*2L));
+                }
+                else{
+                    spill();
+                }
+            }
+            buffer[size++] = ((long)start << 32) | (end & 0xffffffffL);
+            numEdges++;
+        }
+
+        /**
+         * The spill method sorts the buffer by starting vertex and writes it out as a run. Edges leaving the same vertex
+         * end up sorted by ending vertex instead of in the order they were added. That doesn't change the kernels, but
+         * kernels that could go in either order may come out in a different order than the in-memory sorts give.
+         */
+        private void spill() throws IOException{
+            Arrays.sort(buffer, 0, size);
+            File run = File.createTempFile("run", ".edges", dir);
+            run.deleteOnExit();
+            try(FileChannel out = FileChannel.open(run.toPath(), StandardOpenOption.WRITE)){
+                ByteBuffer bytes = ByteBuffer.allocateDirect(IO_BUFFER);
+                for(int i = 0; i<size; i++){
+                    if(!bytes.hasRemaining()){
+                        write(out, bytes);
+                    }
+                    bytes.putLong(buffer[i]);
+                }
+                write(out, bytes);
+            }
+            runs.add(run);
+            size = 0;
+        }
+
+        /**
+         * The build method merges the runs into the targets file of the finished graph.
+         *
+         * @param numVertices   the number of vertices, which every edge must lie between
+         * @return              the graph
+         */
+        public ExternalGraph build(int numVertices) throws IOException{
+            if(size > 0 || runs.isEmpty()){
+                spill();
+            }
+            buffer = null; //the budget goes to the merge and the block cache from here on
+            File file = File.createTempFile("targets", ".edges", dir);
+            file.deleteOnExit();
+            long[] offsets = new long[numVertices+1];
+            PriorityQueue<Run> queue = new PriorityQueue<Run>(runs.size());
+            ArrayList<Run> opened = new ArrayList<Run>(runs.size()); //every run opened, to close if the merge fails
+            int readBuffer = (int)Math.max(4096, Math.min(IO_BUFFER*16, budget/2/runs.size()));
+            boolean merged = false;
+            try(FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)){
+                for(File run : runs){
+                    Run r = new Run(run, readBuffer);
+                    opened.add(r);
+                    if(r.advance()){
+                        queue.add(r);
+                    }
+                }
+                ByteBuffer bytes = ByteBuffer.allocateDirect(IO_BUFFER);
+                while(!queue.isEmpty()){ //take the smallest edge of all the runs each time
+                    Run r = queue.poll();
+                    int start = (int)(r.edge >>> 32);
+                    offsets[start+1]++;
+                    if(!bytes.hasRemaining()){
+                        write(out, bytes);
+                    }
+                    bytes.putInt((int)r.edge);
+                    if(r.advance()){
+                        queue.add(r);
+                    }
+                }
+                write(out, bytes);
+                for(int v = 0; v<numVertices; v++){
+                    offsets[v+1] += offsets[v];
+                }
+                merged = true;
+            }
+            finally{
+                for(Run r : opened){ //the runs still being read when the merge stopped early are still open
+                    r.close();
+                }
+                discard();
+                if(!merged){
+                    file.delete();
+                }
+            }
+            try{
+                return new ExternalGraph(numVertices, offsets, file, budget);
+            }
+            catch(IOException e){
+                file.delete();
+                throw e;
+            }
+        }
+
+        /**
+         * The discard method deletes the runs spilled so far, for when the graph won't be built after all.
+         */
+        public void discard(){
+            for(File run : runs){
+                run.delete();
+            }
+        }
+
+        /**
+         * The write method writes out everything in a byte buffer and empties it.
+         */
+        private static void write(FileChannel out, ByteBuffer bytes) throws IOException{
+            bytes.flip();
+            while(bytes.hasRemaining()){
+                out.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+
+    /**
+     * The Run class reads the edges of a spilled run one at a time, in order.
+     */
+    private static class Run implements Comparable<Run>, Closeable{
+        private final DataInputStream in; //the run's file
+        private long edge; //the edge read last
+
+        Run(File file, int bufferSize) throws IOException{
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), bufferSize));
+        }
+
+        /**
+         * The advance method reads the next edge, closing the run once it is used up.
+         *
+         * @return  true if there was another edge, false otherwise
+         */
+        boolean advance() throws IOException{
+            try{
+                edge = in.readLong();
+                return true;
+            }
+            catch(EOFException e){
+                in.close();
+                return false;
+            }
+        }
+
+        /**
+         * The close method closes the run's file, which does nothing if it is already closed. The run's file can be
+         * deleted once it is closed.
+         */
+        public void close(){
+            try{
+                in.close();
+            }
+            catch(IOException e){ //nothing was written, so nothing is lost
+            }
+        }
+
+        public int compareTo(Run other){
+            return Long.compare(edge, other.edge);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+/**
+ * The GraphBenchmark class times the graph algorithms on large synthetic graphs. The chain benchmark runs the traversals
+ * on a long chain of tasks, on a thread whose call stack is only a few hundred kilobytes, far too small for a recursive
+ * search down the chain, to show that the traversals use bounded stack space however long the chain is. The levels
+ * benchmark times the parallel level sort on a random acyclic graph, and the scc benchmark times Tarjan's algorithm and the
+ * parallel forward-backward split on a random graph with cycles, each with every number of threads up to the number of
+ * cores. The neighbors benchmark walks every edge of a named random graph through the vertex objects and through vertex
+ * ids, to compare what each way allocates. The hubs benchmark adds edges into a few hub tasks, many of them repeated, with
+ * and without rejecting the duplicates, and times checking for edges. The external benchmark times spilling a random
+ * graph's edges to disk in sorted runs and running Tarjan's algorithm over them with a small budget.
+ *
+ * The operations that are tracked from one change to the next are measured under JMH in the benchmarks module instead.
+ *
+ * Usage: java GraphBenchmark [chain|levels|scc|neighbors|hubs|external] [number of vertices]
+ */
+public class GraphBenchmark
+{
+    private static final long STACK_SIZE = 256*1024; //bytes of call stack given to the benchmark thread
+
+    /**
+     * The main method runs the chosen benchmark on a small-stack thread, with the chain benchmark and its default size
+     * used unless others are given.
+     *
+     * @param args  optionally, the benchmark to run, and the number of vertices in the graph
+     */
+    public static void main(String[] args) throws InterruptedException{
+        int arg = 0;
+        String name = "chain";
+        if(args.length>arg && !Character.isDigit(args[arg].charAt(0))){
+            name = args[arg++];
+        }
+        final int n = args.length>arg ? Integer.parseInt(args[arg]) : 0;
+        Runnable benchmark;
+        if(name.equals("chain")){
+            benchmark = () -> chainBenchmark(n>0 ? n : 10_000_000);
+        }
+        else if(name.equals("levels")){
+            benchmark = () -> levelsBenchmark(n>0 ? n : 2_000_000);
+        }
+        else if(name.equals("scc")){
+            benchmark = () -> sccBenchmark(n>0 ? n : 2_000_000);
+        }
+        else if(name.equals("neighbors")){
+            benchmark = () -> neighborsBenchmark(n>0 ? n : 200_000);
+        }
+        else if(name.equals("hubs")){
+            benchmark = () -> hubsBenchmark(n>0 ? n : 200_000);
+        }
+        else if(name.equals("external")){
+            benchmark = () -> externalBenchmark(n>0 ? n : 2_000_000);
+        }
+        else{
+            System.out.println("Unknown benchmark: " + name);
+            return;
+        }
+        Thread t = new Thread(null, benchmark, name + " benchmark", STACK_SIZE);
+        t.start();
+        t.join();
+    }
+
+    /**
+     * The chainBenchmark method times cycle detection and topological sorting on a chain of n vertices, and the Kosaraju
+     * passes on the same chain closed into one giant cycle.
+     */
+    private static void chainBenchmark(int n){
+        System.out.println("chain of " + n + " vertices, " + (STACK_SIZE/1024) + "KB stack");
+        CompactGraph chain = SyntheticGraphs.chain(n, false);
+
+        long start = System.nanoTime();
+        DepthFirstSearch dfs = new DepthFirstSearch(chain);
+        boolean found = dfs.findsCycle(0, new boolean[n], new boolean[n]);
+        report("cycle detection", start, found ? "cycle" : "no cycle");
+
+        start = System.nanoTime();
+        int[] list = new int[n];
+        dfs.finishOrder(0, new boolean[n], list, n-1);
+        report("topological sort", start, "first " + list[0] + ", last " + list[n-1]);
+
+        CompactGraph ring = SyntheticGraphs.chain(n, true);
+        start = System.nanoTime();
+        int[] reverse = new int[n];
+        new DepthFirstSearch(ring.reverse()).finishOrder(0, new boolean[n], reverse, n-1);
+        boolean[] marked = new boolean[n];
+        DepthFirstSearch forward = new DepthFirstSearch(ring);
+        int kernels = 0;
+        int index = n-1;
+        for(int i = 0; i<n; i++){ //every traversal of the forward graph from an unmarked vertex finds one kernel
+            if(!marked[reverse[i]]){
+                index = forward.finishOrder(reverse[i], marked, list, index);
+                kernels++;
+            }
+        }
+        report("kosaraju passes", start, kernels + " kernel(s)");
+    }
+
+    /**
+     * The levelsBenchmark method times the parallel level sort on a random acyclic graph of n vertices with five edges
+     * each, once for every number of threads that is a power of two up to the number of cores, and once more with all
+     * of the cores.
+     */
+    private static void levelsBenchmark(int n){
+        CompactGraph dag = SyntheticGraphs.randomDag(n, 5, 1);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("random acyclic graph of " + n + " vertices and " + dag.numEdges + " edges, " + cores + " cores");
+        new LevelSort(dag, ForkJoinPool.commonPool()).levels(); //warm up
+        for(int threads = 1; threads<=cores; threads = nextThreadCount(threads, cores)){
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long start = System.nanoTime();
+            int[][] levels = new LevelSort(dag, pool).levels();
+            report("level sort, " + threads + " thread(s)", start, levels.length + " levels");
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The sccBenchmark method times Tarjan's algorithm and then the parallel forward-backward split on a random graph of n
+     * vertices with two edges each, which has one giant kernel and many single-vertex ones, once for every number of
+     * threads that is a power of two up to the number of cores, and once more with all of the cores.
+     */
+    private static void sccBenchmark(int n){
+        CompactGraph graph = SyntheticGraphs.randomGraph(n, 2, 1);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("random graph of " + n + " vertices and " + graph.numEdges + " edges, " + cores + " cores");
+        int[] component = new int[n];
+        new ParallelComponents(graph, ForkJoinPool.commonPool()).strongComponents(component); //warm up
+
+        long start = System.nanoTime();
+        int count = new DepthFirstSearch(graph).strongComponents(component);
+        report("tarjan", start, count + " kernels");
+        for(int threads = 1; threads<=cores; threads = nextThreadCount(threads, cores)){
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            start = System.nanoTime();
+            count = new ParallelComponents(graph, pool).strongComponents(component);
+            report("forward-backward, " + threads + " thread(s)", start, count + " kernels");
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The neighborsBenchmark method walks every edge of a random acyclic graph of n named vertices with five edges each,
+     * first through getAdjacencyList, looking each neighbor up by name, then through the neighbor cursor and through
+     * forEachNeighbor, which only use vertex ids.
+     */
+    private static void neighborsBenchmark(int n){
+        CompactGraph g = SyntheticGraphs.randomDag(n, 5, 1);
+        final DirectedGraph dg = new DirectedGraph(SyntheticGraphs.named(g, "t"));
+        System.out.println("random acyclic graph of " + n + " vertices and " + g.numEdges + " edges");
+        System.out.println("operation, vertices: ops/s, p50 / p90 / p99 / max ms, bytes allocated per op");
+        final long[] sum = new long[1];
+        final IntConsumer add = w -> sum[0] += w; //created once, so walking the edges allocates nothing
+        measure("getAdjacencyList", n, 20, () -> {
+            long total = 0;
+            for(int v = 0; v<dg.numVertices; v++){
+                for(DirectedGraph.Vertex w : dg.getAdjacencyList(dg.vertex(v))){
+                    total += dg.tasks.find(w.task);
+                }
+            }
+            return total;
+        });
+        measure("neighbor cursor", n, 20, () -> {
+            long total = 0;
+            for(int v = 0; v<dg.numVertices; v++){
+                for(int i = 0; i<dg.outDegree(v); i++){
+                    total += dg.neighbor(v, i);
+                }
+            }
+            return total;
+        });
+        measure("forEachNeighbor", n, 20, () -> {
+            sum[0] = 0;
+            for(int v = 0; v<dg.numVertices; v++){
+                dg.forEachNeighbor(v, add);
+            }
+            return sum[0];
+        });
+    }
+
+    /**
+     * The hubsBenchmark method adds n*5 random edges from 16 hub tasks to n other tasks, so each hub is the prerequisite
+     * of a huge number of tasks and about a seventh of the edges are repeats. It builds the graph keeping every edge and
+     * again rejecting duplicates, then times ten thousand checks for edges leaving the hubs on each graph.
+     */
+    private static void hubsBenchmark(int n){
+        final int hubs = 16;
+        final int m = n*5;
+        Random random = new Random(1);
+        String[] names = new String[n+hubs];
+        for(int v = 0; v<names.length; v++){
+            names[v] = "t" + v;
+        }
+        final String[] starts = new String[m];
+        final String[] ends = new String[m];
+        for(int e = 0; e<m; e++){
+            starts[e] = names[n+random.nextInt(hubs)];
+            ends[e] = names[random.nextInt(n)];
+        }
+        final String[] queries = new String[20_000];
+        for(int q = 0; q<queries.length; q += 2){
+            queries[q] = names[n+random.nextInt(hubs)];
+            queries[q+1] = names[random.nextInt(n)];
+        }
+        System.out.println(hubs + " hubs with " + m + " edges to " + n + " tasks");
+        System.out.println("operation, vertices: ops/s, p50 / p90 / p99 / max ms, bytes allocated per op");
+        for(boolean unique : new boolean[]{false, true}){
+            String kind = unique ? "rejecting duplicates" : "keeping duplicates";
+            final DirectedGraph[] built = new DirectedGraph[1];
+            measure("build, " + kind, n, 5, () -> {
+                DirectedGraph dg = new DirectedGraph(n+hubs, m);
+                if(unique){
+                    dg.rejectDuplicateEdges();
+                }
+                dg.addEdges(starts, ends, m);
+                built[0] = dg;
+                return dg;
+            });
+            final DirectedGraph dg = built[0];
+            System.out.println("  " + dg.countEdges() + " edges kept");
+            measure("10k edge checks, " + kind, n, 5, () -> {
+                int found = 0;
+                for(int q = 0; q<queries.length; q += 2){ //from a hub to a random task
+                    found += dg.hasEdge(queries[q], queries[q+1]) ? 1 : 0;
+                }
+                return found;
+            });
+        }
+    }
+
+    /**
+     * The externalBenchmark method spills a random graph of n vertices with five edges each to disk with a memory budget
+     * of a tenth of its edges, then runs Tarjan's algorithm over the spilled edges, and compares it with Tarjan's
+     * algorithm on the same graph in memory.
+     */
+    private static void externalBenchmark(int n){
+        CompactGraph g = SyntheticGraphs.randomGraph(n, 5, 1);
+        long budget = Math.max(1<<16, g.numEdges*8L/10);
+        System.out.println("random graph of " + n + " vertices and " + g.numEdges + " edges, " + (budget>>10)
+            + "KB budget for edges");
+        try{
+            long start = System.nanoTime();
+            ExternalGraph.Builder builder = new ExternalGraph.Builder(budget, new File(System.getProperty("java.io.tmpdir")));
+            for(int v = 0; v<n; v++){
+                for(int e = g.begin(v); e<g.end(v); e++){
+                    builder.addEdge(v, g.target(e));
+                }
+            }
+            ExternalGraph external = builder.build(n);
+            report("spill and merge", start, external.numEdges + " edges on disk");
+            start = System.nanoTime();
+            int count = external.strongComponents(new int[n]);
+            report("external tarjan", start, count + " kernels, " + external.blocksRead() + " blocks read");
+            external.close();
+        }
+        catch(IOException e){
+            System.out.println("could not spill the edges: " + e);
+        }
+        long start = System.nanoTime();
+        int count = new DepthFirstSearch(g).strongComponents(new int[n]);
+        report("in-memory tarjan", start, count + " kernels");
+    }
+
+    /**
+     * The measure method runs an operation a few times to warm it up, then times each of the given number of runs and
+     * prints the throughput, the latency percentiles and the average number of bytes the operation allocated.
+     *
+     * @param op    the name of the operation
+     * @param n     the number of vertices in the graph
+     * @param runs  the number of timed runs
+     * @param task  the operation, which returns its result so the work can't be skipped
+     */
+    private static void measure(String op, int n, int runs, Callable<Object> task){
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocation = threads instanceof com.sun.management.ThreadMXBean ?
+            (com.sun.management.ThreadMXBean)threads : null; //not every JVM counts allocated bytes
+        long id = Thread.currentThread().getId();
+        long[] times = new long[runs];
+        long bytes = 0;
+        int results = 0; //the results are counted so the runs can't be optimized away
+        try{
+            for(int i = 0; i<Math.max(2, runs/5); i++){ //warm up
+                results += task.call()!=null ? 1 : 0;
+            }
+            long total = System.nanoTime();
+            for(int i = 0; i<runs; i++){
+                long before = allocation!=null ? allocation.getThreadAllocatedBytes(id) : 0;
+                long start = System.nanoTime();
+                results += task.call()!=null ? 1 : 0;
+                times[i] = System.nanoTime()-start;
+                bytes += allocation!=null ? allocation.getThreadAllocatedBytes(id)-before : 0;
+            }
+            total = System.nanoTime()-total;
+            Arrays.sort(times);
+            System.out.printf("  %s, %d: %.1f ops/s, %.3f / %.3f / %.3f / %.3f ms, %s%n", op, n,
+                runs*1e9/total, percentile(times, 50), percentile(times, 90), percentile(times, 99),
+                times[runs-1]/1e6, allocation!=null ? (bytes/runs) + " bytes" : "unknown");
+        }
+        catch(Exception e){
+            System.out.println("  " + op + ", " + n + ": failed (" + e + ")");
+        }
+        if(results<0){
+            System.out.println(results);
+        }
+    }
+
+    /**
+     * The percentile method returns the given percentile of a sorted array of times, in milliseconds.
+     */
+    private static double percentile(long[] sorted, int p){
+        int i = (int)Math.ceil(p/100.0*sorted.length)-1;
+        return sorted[Math.max(0,i)]/1e6;
+    }
+
+    /**
+     * The nextThreadCount method returns the next number of threads to benchmark with: double the last one, or all of
+     * the cores once doubling would pass them.
+     */
+    private static int nextThreadCount(int threads, int cores){
+        if(threads<cores && threads*2>cores){
+            return cores;
+        }
+        return threads*2;
+    }
+
+    /**
+     * The report method prints how long an operation took since the given start time.
+     */
+    private static void report(String op, long start, String result){
+        long ms = (System.nanoTime()-start)/1_000_000;
+        System.out.println(op + ": " + ms + " ms (" + result + ")");
+    }
+}
@@ -0,0 +1,455 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+/**
+ * The GraphSnapshot class saves a loaded graph in a compact binary file and opens it again by mapping the file into
+ * memory, so a large task file only has to be parsed once. The file holds the table of task names, the compressed sparse
+ * row arrays of the graph, optionally the kernels found by a sort, and the durations of the tasks if any were set. Once
+ * opened, the graph reads its edges and the table its names straight out of the mapped file instead of copying them into
+ * arrays, so no name is decoded or hashed until it is asked for.
+ *
+ * The file starts with a header of little-endian ints: the magic number, the version, the number of vertices, the number
+ * of edges, the number of name bytes, the number of kernels (or -1 if none were saved), the code of the sort mode the
+ * kernels were found with (or -1), whether they showed a cycle, the number of spots in the table of names, and whether
+ * durations were saved. The codes are fixed by MODES rather than taken from the order of DirectedGraph.SortMode, so
+ * adding a mode doesn't change what older snapshots mean. Then come the name offsets, the hash of each name, the table
+ * of ids that finds a name from its hash, the name bytes padded to a multiple of four, the edge offsets, the edge
+ * targets, then if there are kernels, the start of each kernel followed by the members of every kernel in order, and if
+ * there are durations, the duration of each task as a little-endian double.
+ *
+ * Usage: java GraphSnapshot [task file] [snapshot file] [sort mode to save the kernels of]
+ */
+public class GraphSnapshot
+{
+    private static final int MAGIC = 0x474B5354; //the bytes "TSKG" read as a little-endian int
+    private static final int VERSION = 2; //version 1 had no hashes, table of ids, or durations
+    private static final int HEADER_SIZE = 40; //the number of bytes in the header
+    private static final int BUFFER_SIZE = 1<<16; //the number of bytes written to the file at a time
+    private static final DirectedGraph.SortMode[] MODES = { //each mode's code is its spot here, so only add to the end
+        DirectedGraph.SortMode.TARJAN, DirectedGraph.SortMode.KOSARAJU, DirectedGraph.SortMode.LEVELS,
+        DirectedGraph.SortMode.PARALLEL, DirectedGraph.SortMode.INCREMENTAL, DirectedGraph.SortMode.EXTERNAL};
+
+    private final CompactGraph graph; //the graph, reading from the mapped file
+    private final IntBuffer kernelStart; //where each kernel starts in the members, or null if there are no kernels
+    private final IntBuffer members; //the vertices of each kernel, one kernel after another
+    private final int numKernels; //the number of saved kernels, or -1 if none were saved
+    private final DirectedGraph.SortMode mode; //the sort mode the kernels were found with
+    private final boolean cyclic; //whether the saved kernels showed a cycle
+    private final DoubleBuffer durations; //how long each task takes, or null if no durations were saved
+
+    /**
+     * Creates a snapshot out of an opened graph, its saved kernels, and its saved durations.
+     */
+    private GraphSnapshot(CompactGraph graph, IntBuffer kernelStart, IntBuffer members, int numKernels,
+            DirectedGraph.SortMode mode, boolean cyclic, DoubleBuffer durations){
+        this.graph = graph;
+        this.kernelStart = kernelStart;
+        this.members = members;
+        this.numKernels = numKernels;
+        this.mode = mode;
+        this.cyclic = cyclic;
+        this.durations = durations;
+    }
+
+    /**
+     * The main method loads a task file and saves it as a snapshot, along with its kernels if a sort mode is given.
+     *
+     * @param args  the task file, the snapshot file to write, and optionally the sort mode
+     */
+    public static void main(String[] args){
+        DirectedGraph.SortMode mode = null;
+        if(args.length>2){ //read before the file, so that nothing else is taken for a bad mode
+            try{
+                mode = DirectedGraph.SortMode.valueOf(args[2].toUpperCase());
+            }
+            catch(IllegalArgumentException e){
+                System.out.println("Unknown sort mode.");
+                return;
+            }
+        }
+        try{
+            write(TaskFileLoader.load(new File(args[0]), true), mode, new File(args[1]));
+        }
+        catch(IOException e){
+            System.out.println("File not found.");
+        }
+        catch(Exception e){
+            System.out.println("Usage: java GraphSnapshot [task file] [snapshot file] [sort mode]");
+        }
+    }
+
+    /**
+     * The isSnapshot method returns whether a file starts like a snapshot, rather than a task file.
+     */
+    public static boolean isSnapshot(File file) throws IOException{
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            ByteBuffer start = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            while(start.hasRemaining() && channel.read(start) != -1){
+            }
+            return start.position() == 8 && start.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * The write method saves a graph as a snapshot. Every task must have a name, since the tasks are found by name once
+     * the snapshot is opened again. The durations of the tasks are saved too if any task has one.
+     *
+     * @param dg    the graph to save
+     * @param mode  the sort mode to find the kernels with, or null to save the graph without its kernels
+     * @param file  the snapshot file to write
+     * @throws IOException  if the file can't be written
+     * @throws IllegalArgumentException if a task has no name
+     */
+    public static void write(DirectedGraph dg, DirectedGraph.SortMode mode, File file) throws IOException{
+        int code = mode != null ? codeOf(mode) : -1;
+        CompactGraph g = dg.compact();
+        NameTable table = dg.tasks; //numbered the same as the compact graph
+        int n = g.numVertices;
+        byte[][] names = new byte[n][];
+        int[] nameOffsets = new int[n+1];
+        for(int v = 0; v<n; v++){
+            names[v] = table.utf8(v);
+            if(names[v] == null){
+                throw new IllegalArgumentException("Task " + v + " has no name, and a snapshot can only hold named tasks");
+            }
+            nameOffsets[v+1] = nameOffsets[v] + names[v].length;
+        }
+        int[] slots = table.slots();
+        DirectedGraph.Kernel[] kernels = mode != null ? dg.sort(mode) : null;
+        boolean timed = dg.hasDurations();
+
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(g.numEdges).putInt(nameOffsets[n]);
+            buffer.putInt(kernels != null ? kernels.length : -1);
+            buffer.putInt(code);
+            buffer.putInt(kernels != null && dg.foundCycle() ? 1 : 0);
+            buffer.putInt(slots.length);
+            buffer.putInt(timed ? 1 : 0);
+            for(int v = 0; v<=n; v++){
+                buffer = putInt(channel, buffer, nameOffsets[v]);
+            }
+            for(int v = 0; v<n; v++){
+                buffer = putInt(channel, buffer, table.hashOf(v));
+            }
+            for(int slot : slots){
+                buffer = putInt(channel, buffer, slot);
+            }
+            for(int v = 0; v<n; v++){
+                for(byte b : names[v]){
+                    buffer = ensure(channel, buffer, 1).put(b);
+                }
+            }
+            for(int pad = nameOffsets[n]; pad%4 != 0; pad++){ //keep the ints after the names aligned
+                buffer = ensure(channel, buffer, 1).put((byte)0);
+            }
+            for(int v = 0; v<=n; v++){
+                buffer = putInt(channel, buffer, v<n ? g.begin(v) : g.numEdges);
+            }
+            for(int e = 0; e<g.numEdges; e++){
+                buffer = putInt(channel, buffer, g.target(e));
+            }
+            if(kernels != null){
+                int start = 0;
+                for(int i = 0; i<=kernels.length; i++){
+                    buffer = putInt(channel, buffer, start);
+                    start += i<kernels.length ? kernels[i].verts.size() : 0;
+                }
+                for(DirectedGraph.Kernel k : kernels){
+                    for(DirectedGraph.Vertex v : k.verts){
+                        buffer = putInt(channel, buffer, v.index);
+                    }
+                }
+            }
+            if(timed){
+                for(int v = 0; v<n; v++){
+                    buffer = ensure(channel, buffer, 8).putDouble(dg.getDuration(v));
+                }
+            }
+            buffer.flip();
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * The codeOf method returns the code a sort mode is saved as.
+     */
+    private static int codeOf(DirectedGraph.SortMode mode){
+        for(int code = 0; code<MODES.length; code++){
+            if(MODES[code] == mode){
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("Sort mode " + mode + " has no snapshot code");
+    }
+
+    /**
+     * The putInt method adds an int to the write buffer, writing the buffer out first if it is full.
+     */
+    private static ByteBuffer putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException{
+        return ensure(channel, buffer, 4).putInt(value);
+    }
+
+    /**
+     * The ensure method writes the buffer out to the channel if it doesn't have room for the given number of bytes.
+     */
+    private static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException{
+        if(buffer.remaining() < bytes){
+            buffer.flip();
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    /**
+     * The open method maps a snapshot file into memory. Nothing is copied out of the file: the graph, its names, and the
+     * kernels read it through the mapping, which stays valid after the file is closed. The header is checked against
+     * the size of the file, and every offset and id in it is checked to be in range, so a truncated or corrupt snapshot
+     * is reported here rather than partway through a sort.
+     *
+     * @param file  the snapshot file
+     * @return      the opened snapshot
+     * @throws IOException  if the file can't be read, isn't a snapshot, or is truncated or corrupt
+     */
+    public static GraphSnapshot open(File file) throws IOException{
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            if(channel.size() < HEADER_SIZE){
+                throw new IOException(file + " is not a graph snapshot");
+            }
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            if(header.getInt(0) != MAGIC){
+                throw new IOException(file + " is not a graph snapshot");
+            }
+            if(header.getInt(4) != VERSION){
+                throw new IOException(file + " is a version " + header.getInt(4) + " snapshot, and only version " + VERSION
+                    + " can be read, so it has to be saved again");
+            }
+            int n = header.getInt(8);
+            int m = header.getInt(12);
+            int nameBytes = header.getInt(16);
+            int numKernels = header.getInt(20);
+            int code = header.getInt(24);
+            boolean cyclic = header.getInt(28) != 0;
+            int numSlots = header.getInt(32);
+            int timed = header.getInt(36);
+            if(n < 0 || m < 0 || nameBytes < 0 || numKernels < -1 || (timed != 0 && timed != 1)){
+                throw new IOException(file + " is corrupt: its header has a negative size");
+            }
+            if(numSlots <= n || Integer.bitCount(numSlots) != 1){ //the table needs a free spot to end every search
+                throw new IOException(file + " is corrupt: its table of names has " + numSlots + " spots for " + n
+                    + " names");
+            }
+            if(code < -1 || code >= MODES.length || (code == -1) != (numKernels < 0)){
+                throw new IOException(file + " has kernels saved with an unknown sort mode (" + code + ")");
+            }
+            long size = HEADER_SIZE + 4L*(n+1) + 4L*n + 4L*numSlots + ((nameBytes+3) & ~3L) + 4L*(n+1) + 4L*m
+                + (numKernels >= 0 ? 4L*(numKernels+1) + 4L*n : 0) + (timed == 1 ? 8L*n : 0);
+            if(size != channel.size()){
+                throw new IOException(file + " is truncated or corrupt: its header describes " + size
+                    + " bytes, but it holds " + channel.size());
+            }
+
+            long position = HEADER_SIZE;
+            IntBuffer nameOffsets = map(channel, position, 4L*(n+1)).asIntBuffer();
+            position += 4L*(n+1);
+            IntBuffer hashes = map(channel, position, 4L*n).asIntBuffer();
+            position += 4L*n;
+            IntBuffer slots = map(channel, position, 4L*numSlots).asIntBuffer();
+            position += 4L*numSlots;
+            ByteBuffer names = map(channel, position, nameBytes);
+            position += (nameBytes+3) & ~3L;
+            IntBuffer offsets = map(channel, position, 4L*(n+1)).asIntBuffer();
+            position += 4L*(n+1);
+            IntBuffer targets = map(channel, position, 4L*m).asIntBuffer();
+            position += 4L*m;
+            checkOffsets(file, nameOffsets, n, nameBytes, "name");
+            checkSlots(file, slots, n);
+            checkOffsets(file, offsets, n, m, "edge");
+            checkIds(file, targets, n, "edge");
+            IntBuffer kernelStart = null;
+            IntBuffer members = null;
+            if(numKernels >= 0){
+                kernelStart = map(channel, position, 4L*(numKernels+1)).asIntBuffer();
+                position += 4L*(numKernels+1);
+                members = map(channel, position, 4L*n).asIntBuffer();
+                position += 4L*n;
+                checkOffsets(file, kernelStart, numKernels, n, "kernel");
+                checkIds(file, members, n, "kernel member");
+            }
+            DoubleBuffer durations = timed == 1 ? map(channel, position, 8L*n).asDoubleBuffer() : null;
+            DirectedGraph.SortMode mode = code >= 0 ? MODES[code] : null;
+            NameTable table = NameTable.mapped(names, nameOffsets, hashes, slots, n);
+            return new GraphSnapshot(new MappedGraph(n, m, table, offsets, targets), kernelStart, members, numKernels,
+                mode, cyclic, durations);
+        }
+    }
+
+    /**
+     * The checkOffsets method checks that a list of offsets starts at zero, never goes down, and ends at the total.
+     *
+     * @param file      the snapshot file, for the message
+     * @param offsets   the offsets, with one extra entry at the end
+     * @param count     the number of offsets before the extra one
+     * @param total     the size of what they point into
+     * @param what      what they point to, for the message
+     */
+    private static void checkOffsets(File file, IntBuffer offsets, int count, int total, String what)
+            throws IOException{
+        int last = 0;
+        for(int i = 0; i<=count; i++){
+            int offset = offsets.get(i);
+            if(offset < last || offset > total || (i == 0 && offset != 0) || (i == count && offset != total)){
+                throw new IOException(file + " is corrupt: " + what + " offset " + i + " is " + offset);
+            }
+            last = offset;
+        }
+    }
+
+    /**
+     * The checkIds method checks that every vertex id in a list is in the graph.
+     */
+    private static void checkIds(File file, IntBuffer ids, int n, String what) throws IOException{
+        for(int i = 0; i<ids.capacity(); i++){
+            if(ids.get(i) < 0 || ids.get(i) >= n){
+                throw new IOException(file + " is corrupt: " + what + " " + i + " leads to vertex " + ids.get(i));
+            }
+        }
+    }
+
+    /**
+     * The checkSlots method checks that the table of names holds each of the n ids once, plus one, in its spots.
+     */
+    private static void checkSlots(File file, IntBuffer slots, int n) throws IOException{
+        int used = 0;
+        for(int i = 0; i<slots.capacity(); i++){
+            int slot = slots.get(i);
+            if(slot < 0 || slot > n){
+                throw new IOException(file + " is corrupt: its table of names holds " + slot + " in spot " + i);
+            }
+            used += slot != 0 ? 1 : 0;
+        }
+        if(used != n){
+            throw new IOException(file + " is corrupt: its table of names holds " + used + " of " + n + " names");
+        }
+    }
+
+    /**
+     * The map method maps part of the file into memory as little-endian values.
+     */
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException{
+        if(size > Integer.MAX_VALUE){
+            throw new IOException("snapshot section of " + size + " bytes is too large to map");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * The graph method returns the graph in the snapshot, which reads its edges from the mapped file.
+     */
+    public CompactGraph graph(){
+        return graph;
+    }
+
+    /**
+     * The hasKernels method returns whether the snapshot holds the kernels found by the given sort mode.
+     */
+    public boolean hasKernels(DirectedGraph.SortMode mode){
+        return numKernels >= 0 && this.mode == mode;
+    }
+
+    /**
+     * The hasDurations method returns whether the durations of the tasks were saved.
+     */
+    public boolean hasDurations(){
+        return durations != null;
+    }
+
+    /**
+     * The applyDurations method gives a graph opened on top of this snapshot's graph the durations that were saved with
+     * it. Sorting doesn't need them, so they are only read when asked for.
+     *
+     * @param dg    a directed graph made from graph()
+     */
+    public void applyDurations(DirectedGraph dg){
+        if(durations != null){
+            for(int v = 0; v<graph.numVertices; v++){
+                dg.setDuration(v, durations.get(v));
+            }
+        }
+    }
+
+    /**
+     * The foundCycle method returns whether the saved kernels showed a cycle.
+     */
+    public boolean foundCycle(){
+        return cyclic;
+    }
+
+    /**
+     * The kernels method returns the saved kernels in topological order, as kernels of a graph opened on top of this
+     * snapshot's graph.
+     *
+     * @param dg    a directed graph made from graph()
+     * @return      the kernels, or null if none were saved
+     */
+    public DirectedGraph.Kernel[] kernels(DirectedGraph dg){
+        if(numKernels < 0){
+            return null;
+        }
+        DirectedGraph.Kernel[] k = new DirectedGraph.Kernel[numKernels];
+        for(int i = 0; i<numKernels; i++){
+            k[i] = dg.new Kernel(i);
+            for(int j = kernelStart.get(i); j<kernelStart.get(i+1); j++){
+                k[i].addVertex(dg.vertex(members.get(j)));
+            }
+        }
+        return k;
+    }
+
+    /**
+     * The MappedGraph class is a compact graph whose table of names and arrays are read out of a mapped snapshot file.
+     */
+    private static class MappedGraph extends CompactGraph{
+        private final NameTable table; //the task names, read from the mapped file
+        private final IntBuffer offsets; //where each vertex's edges start in the targets
+        private final IntBuffer targets; //the vertex at the end of each edge, grouped by starting vertex
+
+        MappedGraph(int n, int m, NameTable table, IntBuffer offsets, IntBuffer targets){
+            super(n, m);
+            this.table = table;
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        public int begin(int v){
+            return offsets.get(v);
+        }
+
+        public int end(int v){
+            return offsets.get(v+1);
+        }
+
+        public int target(int e){
+            return targets.get(e);
+        }
+
+        public String name(int v){
+            return table.name(v);
+        }
+
+        protected NameTable table(){
+            return table;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * The LevelSort class splits an acyclic CompactGraph into topological levels with a parallel version of Kahn's algorithm.
+ * Level zero holds the tasks with no prerequisites, and every other task is one level past its latest prerequisite, so
+ * the tasks in a level can all run at the same time. Each level is processed on a fork/join pool, with the number of
+ * unfinished prerequisites of each task kept in an int array that is updated atomically.
+ */
+public class LevelSort
+{
+    private static final int THRESHOLD = 2048; //levels with at most this many vertices are processed by a single thread
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final CompactGraph g; //the graph to sort
+    private final ForkJoinPool pool; //the pool that processes large levels
+    private final int[] inDegree; //the number of unfinished prerequisites of each vertex
+    private final int[] order; //every vertex, one level after another
+    private final AtomicInteger size; //the number of vertices that have been placed in the order
+
+    /**
+     * Creates a level sort of the given graph that runs on the given pool.
+     */
+    public LevelSort(CompactGraph g, ForkJoinPool pool){
+        this.g = g;
+        this.pool = pool;
+        inDegree = new int[g.numVertices];
+        order = new int[g.numVertices];
+        size = new AtomicInteger();
+    }
+
+    /**
+     * The levels method splits the graph into levels. The vertices in each level are listed in increasing order.
+     *
+     * @return  an array holding the vertex ids of each level, or null if the graph has a cycle
+     */
+    public int[][] levels(){
+        int n = g.numVertices;
+        pool.invoke(new CountTask(0, n));
+
+        int placed = 0;
+        for(int v = 0; v<n; v++){ //the first level is every vertex without prerequisites
+            if(inDegree[v]==0){
+                order[placed++] = v;
+            }
+        }
+        size.set(placed);
+
+        int[] bounds = new int[n+1]; //where each level starts in the order, with the end of the last level after it
+        int numLevels = 0;
+        int start = 0;
+        while(start<placed){
+            bounds[numLevels++] = start;
+            if(placed-start <= THRESHOLD){
+                release(start, placed);
+            }
+            else{
+                pool.invoke(new LevelTask(start, placed));
+            }
+            start = placed;
+            placed = size.get();
+        }
+        bounds[numLevels] = placed;
+        if(placed<n){ //the vertices on a cycle never run out of prerequisites
+            return null;
+        }
+
+        int[][] levels = new int[numLevels][];
+        for(int i = 0; i<numLevels; i++){
+            levels[i] = Arrays.copyOfRange(order, bounds[i], bounds[i+1]);
+            Arrays.sort(levels[i]); //the order within a level depends on the threads, so it is put back in id order
+        }
+        return levels;
+    }
+
+    /**
+     * The release method finishes the vertices in part of the current level, placing every vertex whose last
+     * prerequisite was among them into the next level.
+     *
+     * @param lo    the first spot in the order to finish
+     * @param hi    the spot after the last one to finish
+     */
+    private void release(int lo, int hi){
+        int[] ready = new int[64]; //vertices that became ready, placed all at once to keep the shared counter quiet
+        int numReady = 0;
+        for(int i = lo; i<hi; i++){
+            int v = order[i];
+            for(int e = g.begin(v); e<g.end(v); e++){
+                int w = g.target(e);
+                if((int)COUNTS.getAndAdd(inDegree, w, -1) == 1){ //that was its last prerequisite
+                    if(numReady == ready.length){
+                        ready = Arrays.copyOf(ready, numReady*2);
+                    }
+                    ready[numReady++] = w;
+                }
+            }
+        }
+        int spot = size.getAndAdd(numReady);
+        System.arraycopy(ready, 0, order, spot, numReady);
+    }
+
+    /**
+     * The CountTask class counts the prerequisites of every vertex, splitting the vertices between threads.
+     */
+    private class CountTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+
+        private final int lo; //the first vertex to count from
+        private final int hi; //the vertex after the last one to count from
+
+        CountTask(int lo, int hi){
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute(){
+            if(g.begin(hi)-g.begin(lo) <= THRESHOLD*8 || hi-lo <= 1){
+                for(int e = g.begin(lo); e<g.begin(hi); e++){
+                    COUNTS.getAndAdd(inDegree, g.target(e), 1);
+                }
+            }
+            else{
+                int mid = (lo+hi)>>>1;
+                invokeAll(new CountTask(lo, mid), new CountTask(mid, hi));
+            }
+        }
+    }
+
+    /**
+     * The LevelTask class finishes part of a level, splitting it between threads.
+     */
+    private class LevelTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+
+        private final int lo; //the first spot in the order to finish
+        private final int hi; //the spot after the last one to finish
+
+        LevelTask(int lo, int hi){
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute(){
+            if(hi-lo <= THRESHOLD){
+                release(lo, hi);
+            }
+            else{
+                int mid = (lo+hi)>>>1;
+                invokeAll(new LevelTask(lo, mid), new LevelTask(mid, hi));
+            }
+        }
+    }
+}
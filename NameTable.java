@@ -0,0 +1,486 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+/**
+ * The NameTable class numbers task names, keeping each name once as UTF-8 bytes in one growing byte array, the arena,
+ * instead of as a String. Names are found by hashing a slice of bytes and looking it up in an open-addressing table of
+ * ids with linear probing, so a name read from a file can be looked up, or added, straight from the bytes it was read
+ * into, without creating any object. A name is only decoded into a String when it is asked for, and the String is kept
+ * from then on.
+ *
+ * A table can also read its names, hashes, and ids straight out of a mapped snapshot file, as saved by GraphSnapshot.
+ * Such a table can't change, and is copied into arrays before a name is added or removed.
+ */
+public class NameTable
+{
+    private byte[] arena; //the bytes of every name, one after another
+    private int used; //the number of bytes of the arena in use
+    private int[] offset; //where each name starts in the arena
+    private int[] length; //the number of bytes in each name
+    private int[] hash; //the hash of each name
+    private String[] strings; //each name decoded, or null until it is asked for
+    private int count; //the number of names
+    private int[] slots; //the id of the name in each spot of the table plus one, or zero for a free spot
+    private int mask; //the length of the table minus one
+
+    /**
+     * Creates a name table with room for the given number of names before it has to grow.
+     */
+    public NameTable(int expected){
+        expected = Math.max(16, expected);
+        arena = new byte[expected*8];
+        offset = new int[expected];
+        length = new int[expected];
+        hash = new int[expected];
+        strings = new String[expected];
+        int capacity = Integer.highestOneBit(expected*2-1)*2; //keeps the table at most half full
+        slots = new int[capacity];
+        mask = capacity-1;
+    }
+
+    /**
+     * Creates a name table without any arrays, for a subclass that reads its names from somewhere else.
+     */
+    private NameTable(){
+    }
+
+    /**
+     * The mapped method returns a table that reads its names out of a mapped snapshot file instead of copying them. The
+     * table can't change.
+     *
+     * @param names     the UTF-8 bytes of every name, one after another
+     * @param offsets   where each name starts in the bytes, with one extra entry at the end
+     * @param hashes    the hash of each name
+     * @param slots     the table of ids, as returned by slots(), whose length is a power of two with a free spot
+     * @param count     the number of names
+     * @return          the table
+     */
+    public static NameTable mapped(ByteBuffer names, IntBuffer offsets, IntBuffer hashes, IntBuffer slots, int count){
+        return new Mapped(names, offsets, hashes, slots, count);
+    }
+
+    /**
+     * The size method returns the number of names in the table.
+     */
+    public int size(){
+        return count;
+    }
+
+    /**
+     * The find method returns the id of the name held in a slice of bytes.
+     *
+     * @param bytes     the array holding the name's UTF-8 bytes
+     * @param off       where the name starts
+     * @param len       the number of bytes in the name
+     * @return          the id of the name, or -1 if it isn't in the table
+     */
+    public int find(byte[] bytes, int off, int len){
+        int h = hash(bytes, off, len);
+        for(int i = h & mask; slots[i] != 0; i = (i+1) & mask){
+            int id = slots[i]-1;
+            if(hash[id] == h && matches(id, bytes, off, len)){
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The find method returns the id of a name, or -1 if it isn't in the table.
+     */
+    public int find(String name){
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return find(bytes, 0, bytes.length);
+    }
+
+    /**
+     * The add method returns the id of the name held in a slice of bytes, adding the name with the next id if it isn't in
+     * the table yet. The bytes are copied into the arena.
+     *
+     * @param bytes     the array holding the name's UTF-8 bytes
+     * @param off       where the name starts
+     * @param len       the number of bytes in the name
+     * @return          the id of the name
+     */
+    public int add(byte[] bytes, int off, int len){
+        int h = hash(bytes, off, len);
+        int i = h & mask;
+        for(; slots[i] != 0; i = (i+1) & mask){
+            int id = slots[i]-1;
+            if(hash[id] == h && matches(id, bytes, off, len)){
+                return id;
+            }
+        }
+        if(used+len > arena.length){
+            arena = Arrays.copyOf(arena, Math.max(used+len, arena.length*2));
+        }
+        System.arraycopy(bytes, off, arena, used, len);
+        return insert(i, h, used, len);
+    }
+
+    /**
+     * The add method returns the id of a name, adding it if it isn't in the table yet. The String is kept, so it won't
+     * be decoded again.
+     */
+    public int add(String name){
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int id = add(bytes, 0, bytes.length);
+        if(strings[id] == null){
+            strings[id] = name;
+        }
+        return id;
+    }
+
+    /**
+     * The add method returns the id in this table of a name from another table, adding it if it isn't in this table yet.
+     * The other table's hash is used, so the name isn't hashed again.
+     *
+     * @param other     the table holding the name
+     * @param id        the name's id in the other table
+     * @return          the name's id in this table
+     */
+    public int add(NameTable other, int id){
+        if(other.readOnly()){ //the other table's names aren't in an arena
+            byte[] name = other.utf8(id);
+            return add(name, 0, name.length);
+        }
+        int h = other.hash[id];
+        int i = h & mask;
+        for(; slots[i] != 0; i = (i+1) & mask){
+            int found = slots[i]-1;
+            if(hash[found] == h && matches(found, other.arena, other.offset[id], other.length[id])){
+                return found;
+            }
+        }
+        int len = other.length[id];
+        if(used+len > arena.length){
+            arena = Arrays.copyOf(arena, Math.max(used+len, arena.length*2));
+        }
+        System.arraycopy(other.arena, other.offset[id], arena, used, len);
+        int added = insert(i, h, used, len);
+        strings[added] = other.strings[id];
+        return added;
+    }
+
+    /**
+     * The addUnnamed method gives the next id to a vertex without a name, which can't be found by name.
+     */
+    public int addUnnamed(){
+        return insert(-1, 0, used, -1);
+    }
+
+    /**
+     * The insert method gives the next id to a name whose bytes were just copied to the end of the arena, placing it in
+     * the given free spot of the table. A name with a length of -1 is unnamed, and isn't placed in the table.
+     */
+    private int insert(int spot, int h, int start, int len){
+        if(count == offset.length){
+            int size = count*2;
+            offset = Arrays.copyOf(offset, size);
+            length = Arrays.copyOf(length, size);
+            hash = Arrays.copyOf(hash, size);
+            strings = Arrays.copyOf(strings, size);
+        }
+        int id = count++;
+        offset[id] = start;
+        length[id] = len;
+        hash[id] = h;
+        if(len < 0){
+            return id;
+        }
+        used += len;
+        slots[spot] = id+1;
+        if(count*2 > slots.length){
+            grow();
+        }
+        return id;
+    }
+
+    /**
+     * The name method returns a name as a String, decoding it the first time it is asked for.
+     */
+    public String name(int id){
+        String s = strings[id];
+        if(s == null && length[id] >= 0){
+            s = new String(arena, offset[id], length[id], StandardCharsets.UTF_8);
+            strings[id] = s;
+        }
+        return s;
+    }
+
+    /**
+     * The sameName method returns whether a name in this table is the same as a name in another table.
+     */
+    public boolean sameName(int id, NameTable other, int otherId){
+        if(other.readOnly()){ //the other table's names aren't in an arena, so it does the comparing
+            return other.sameName(otherId, this, id);
+        }
+        return hash[id] == other.hash[otherId] && matches(id, other.arena, other.offset[otherId], other.length[otherId]);
+    }
+
+    /**
+     * The hashOf method returns the hash of a name, which is the same in every table.
+     */
+    public int hashOf(int id){
+        return hash[id];
+    }
+
+    /**
+     * The utf8 method returns a copy of a name's UTF-8 bytes, or null for a vertex without a name.
+     */
+    public byte[] utf8(int id){
+        return length[id] < 0 ? null : Arrays.copyOfRange(arena, offset[id], offset[id]+length[id]);
+    }
+
+    /**
+     * The slots method returns a copy of the table of ids, where each spot holds the id of the name whose search passes
+     * through it plus one, or zero if it is free. Saved along with the names and their hashes, it lets a mapped table
+     * find names without hashing them all again.
+     */
+    public int[] slots(){
+        return slots.clone();
+    }
+
+    /**
+     * The readOnly method returns whether the table can't change, so it has to be copied before a name is added or
+     * removed.
+     */
+    public boolean readOnly(){
+        return false;
+    }
+
+    /**
+     * The remove method takes a name out of the table, and gives the last name the removed name's id, so the ids stay
+     * packed. The names after it in the same run of the table are shifted back so that every name can still be found
+     * from its own spot. The removed name's bytes are left unused in the arena.
+     */
+    public void remove(int id){
+        if(length[id] >= 0){
+            int i = spotOf(id);
+            int gap = i;
+            for(int j = (i+1) & mask; slots[j] != 0; j = (j+1) & mask){
+                int home = hash[slots[j]-1] & mask;
+                if(((j-home) & mask) >= ((j-gap) & mask)){ //the name at j can move back into the gap
+                    slots[gap] = slots[j];
+                    gap = j;
+                }
+            }
+            slots[gap] = 0;
+        }
+        int last = --count;
+        if(id != last){
+            if(length[last] >= 0){
+                slots[spotOf(last)] = id+1;
+            }
+            offset[id] = offset[last];
+            length[id] = length[last];
+            hash[id] = hash[last];
+            strings[id] = strings[last];
+        }
+        strings[last] = null;
+    }
+
+    /**
+     * The copy method returns a table holding the same names with the same ids, which can change without changing this
+     * one.
+     */
+    public NameTable copy(){
+        NameTable copy = new NameTable(0);
+        copy.arena = Arrays.copyOf(arena, used);
+        copy.used = used;
+        copy.offset = offset.clone();
+        copy.length = length.clone();
+        copy.hash = hash.clone();
+        copy.strings = strings.clone();
+        copy.count = count;
+        copy.slots = slots.clone();
+        copy.mask = mask;
+        return copy;
+    }
+
+    /**
+     * The bytes method returns the number of bytes the table takes up, not counting names that have been decoded.
+     */
+    public long bytes(){
+        return arena.length + 4L*(offset.length + length.length + hash.length + strings.length + slots.length);
+    }
+
+    /**
+     * The spotOf method returns the spot in the table that holds a name's id.
+     */
+    private int spotOf(int id){
+        int i = hash[id] & mask;
+        while(slots[i] != id+1){
+            i = (i+1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * The matches method returns whether a name's bytes are the same as a slice of bytes.
+     */
+    private boolean matches(int id, byte[] bytes, int off, int len){
+        return length[id] == len && Arrays.equals(arena, offset[id], offset[id]+len, bytes, off, off+len);
+    }
+
+    /**
+     * The grow method doubles the table and puts every id back in.
+     */
+    private void grow(){
+        slots = new int[slots.length*2];
+        mask = slots.length-1;
+        for(int id = 0; id<count; id++){
+            if(length[id] < 0){ //unnamed
+                continue;
+            }
+            int i = hash[id] & mask;
+            while(slots[i] != 0){
+                i = (i+1) & mask;
+            }
+            slots[i] = id+1;
+        }
+    }
+
+    /**
+     * The hash method hashes a slice of bytes with FNV-1a, then mixes the high bits into the low ones, which pick the
+     * spot in the table.
+     */
+    private static int hash(byte[] bytes, int off, int len){
+        int h = 0x811C9DC5;
+        for(int i = off; i<off+len; i++){
+            h = (h ^ bytes[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * The Mapped class is a name table that reads the bytes, offsets, and hashes of its names and its table of ids out of
+     * a mapped file. A name is decoded each time it is asked for, and the table can only change once it is copied.
+     */
+    private static class Mapped extends NameTable
+    {
+        private final ByteBuffer names; //the bytes of every name, one after another
+        private final IntBuffer offsets; //where each name starts in the bytes, with one extra entry at the end
+        private final IntBuffer hashes; //the hash of each name
+        private final IntBuffer slots; //the id of the name in each spot of the table plus one, or zero for a free spot
+        private final int count; //the number of names
+        private final int mask; //the length of the table minus one
+
+        Mapped(ByteBuffer names, IntBuffer offsets, IntBuffer hashes, IntBuffer slots, int count){
+            this.names = names;
+            this.offsets = offsets;
+            this.hashes = hashes;
+            this.slots = slots;
+            this.count = count;
+            mask = slots.capacity()-1;
+        }
+
+        public int size(){
+            return count;
+        }
+
+        public int find(byte[] bytes, int off, int len){
+            int h = hash(bytes, off, len);
+            for(int i = h & mask; slots.get(i) != 0; i = (i+1) & mask){
+                int id = slots.get(i)-1;
+                if(hashes.get(id) == h && matches(id, bytes, off, len)){
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        public String name(int id){
+            return new String(utf8(id), StandardCharsets.UTF_8);
+        }
+
+        public byte[] utf8(int id){
+            byte[] bytes = new byte[offsets.get(id+1)-offsets.get(id)];
+            names.get(offsets.get(id), bytes);
+            return bytes;
+        }
+
+        public int hashOf(int id){
+            return hashes.get(id);
+        }
+
+        public boolean sameName(int id, NameTable other, int otherId){
+            return hashOf(id) == other.hashOf(otherId) && Arrays.equals(utf8(id), other.utf8(otherId));
+        }
+
+        public int[] slots(){
+            int[] copy = new int[slots.capacity()];
+            slots.get(0, copy);
+            return copy;
+        }
+
+        public boolean readOnly(){
+            return true;
+        }
+
+        public int add(byte[] bytes, int off, int len){
+            throw new UnsupportedOperationException("a mapped table of names can't change, so it has to be copied first");
+        }
+
+        public int add(NameTable other, int id){
+            throw new UnsupportedOperationException("a mapped table of names can't change, so it has to be copied first");
+        }
+
+        public int addUnnamed(){
+            throw new UnsupportedOperationException("a mapped table of names can't change, so it has to be copied first");
+        }
+
+        public void remove(int id){
+            throw new UnsupportedOperationException("a mapped table of names can't change, so it has to be copied first");
+        }
+
+        /**
+         * The copy method copies the mapped names, hashes, and ids into the arrays of an ordinary table, without decoding
+         * or hashing any name.
+         */
+        public NameTable copy(){
+            NameTable copy = new NameTable();
+            int capacity = Math.max(16, count);
+            copy.arena = new byte[Math.max(capacity*8, names.capacity())];
+            names.get(0, copy.arena, 0, names.capacity());
+            copy.used = names.capacity();
+            copy.offset = new int[capacity];
+            copy.length = new int[capacity];
+            copy.hash = new int[capacity];
+            copy.strings = new String[capacity];
+            for(int id = 0; id<count; id++){
+                copy.offset[id] = offsets.get(id);
+                copy.length[id] = offsets.get(id+1)-offsets.get(id);
+                copy.hash[id] = hashes.get(id);
+            }
+            copy.count = count;
+            copy.slots = slots();
+            copy.mask = mask;
+            return copy;
+        }
+
+        /**
+         * The bytes method returns zero, since none of the table is on the heap.
+         */
+        public long bytes(){
+            return 0;
+        }
+
+        /**
+         * The matches method returns whether a name's bytes are the same as a slice of bytes.
+         */
+        private boolean matches(int id, byte[] bytes, int off, int len){
+            int start = offsets.get(id);
+            if(offsets.get(id+1)-start != len){
+                return false;
+            }
+            for(int i = 0; i<len; i++){
+                if(names.get(start+i) != bytes[off+i]){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
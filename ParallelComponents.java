@@ -0,0 +1,327 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * The ParallelComponents class splits a CompactGraph into its strongly connected components on a fork/join pool, using
+ * the forward-backward algorithm with trimming. Every group of vertices still to be split has its own color. Vertices
+ * with no edges into or out of their group are trimmed off as single components, then the vertices reachable forward and
+ * backward from a pivot are recolored: the ones reached both ways form the pivot's component, and the three groups left
+ * over are split in parallel. The components are numbered the same way DepthFirstSearch numbers them, so the components
+ * in topological order are the highest number down to zero.
+ */
+public class ParallelComponents
+{
+    private static final int THRESHOLD = 4096; //groups with fewer vertices than this are split by the thread that found them
+    private static final int DONE = -1; //the color of a vertex that has been put in a component
+
+    private final CompactGraph g; //the graph to split
+    private final CompactGraph r; //the graph with its edges reversed
+    private final ForkJoinPool pool; //the pool that splits the groups
+    private final int[] color; //the group each vertex is in, or DONE
+    private final int[] component; //the component each vertex was put in, numbered in the order they were found
+    private final int[] inCount; //the number of edges into each vertex from its own group, used while trimming
+    private final int[] outCount; //the number of edges out of each vertex into its own group, used while trimming
+    private final AtomicInteger colors; //the number of colors handed out
+    private final AtomicInteger components; //the number of components found
+    private boolean cyclic; //whether the graph has a cycle
+
+    /**
+     * Creates a parallel split of the given graph that runs on the given pool.
+     */
+    public ParallelComponents(CompactGraph g, ForkJoinPool pool){
+        this.g = g;
+        this.pool = pool;
+        r = g.reverse();
+        int n = g.numVertices;
+        color = new int[n];
+        component = new int[n];
+        inCount = new int[n];
+        outCount = new int[n];
+        colors = new AtomicInteger(1); //every vertex starts out in group 0
+        components = new AtomicInteger();
+    }
+
+    /**
+     * The strongComponents method splits the whole graph into its strongly connected components. Following an edge never
+     * leads to a component with a higher number, and components that could go in either order are numbered by their
+     * lowest vertex, so the numbering is the same every time.
+     *
+     * @param result    an array to fill with the component number of each vertex
+     * @return          the number of components
+     */
+    public int strongComponents(int[] result){
+        int n = g.numVertices;
+        int[] all = new int[n];
+        for(int v = 0; v<n; v++){
+            all[v] = v;
+        }
+        if(n>0){
+            pool.invoke(new Split(null, all, 0));
+        }
+        int count = components.get();
+
+        //renumber the components by their lowest vertex, and check for cycles
+        int[] rename = new int[count];
+        int[] size = new int[count];
+        Arrays.fill(rename, -1);
+        int named = 0;
+        for(int v = 0; v<n; v++){
+            int c = component[v];
+            if(rename[c]<0){
+                rename[c] = named++;
+            }
+            result[v] = rename[c];
+            size[result[v]]++;
+        }
+        cyclic = false;
+        int cross = 0; //the number of edges between different components
+        for(int v = 0; v<n; v++){
+            if(size[result[v]]>1){
+                cyclic = true;
+            }
+            for(int e = g.begin(v); e<g.end(v); e++){
+                int w = g.target(e);
+                if(w==v){ //a task that depends on itself
+                    cyclic = true;
+                }
+                if(result[w]!=result[v]){
+                    cross++;
+                }
+            }
+        }
+
+        //sort the graph of components topologically, level by level
+        int[] from = new int[cross];
+        int[] to = new int[cross];
+        int m = 0;
+        for(int v = 0; v<n; v++){
+            for(int e = g.begin(v); e<g.end(v); e++){
+                int w = g.target(e);
+                if(result[w]!=result[v]){
+                    from[m] = result[v];
+                    to[m] = result[w];
+                    m++;
+                }
+            }
+        }
+        int[][] levels = new LevelSort(CompactGraph.build(new String[count], from, to, cross), pool).levels();
+        int[] position = new int[count]; //the new number of each component
+        int p = count-1;
+        for(int i = 0; i<levels.length; i++){
+            for(int k = 0; k<levels[i].length; k++){
+                position[levels[i][k]] = p--;
+            }
+        }
+        for(int v = 0; v<n; v++){
+            result[v] = position[result[v]];
+        }
+        return count;
+    }
+
+    /**
+     * The foundCycle method returns whether the last call to strongComponents found a cycle, either a component with more
+     * than one vertex or a vertex with an edge to itself.
+     */
+    public boolean foundCycle(){
+        return cyclic;
+    }
+
+    /**
+     * The split method trims a group and then splits what is left of it around a pivot.
+     *
+     * @param verts     the vertices in the group
+     * @param c         the color of the group
+     * @param parent    the task the new groups belong to
+     * @return          the groups that are left to split
+     */
+    private ArrayList<Split> split(int[] verts, int c, Split parent){
+        ArrayList<Split> groups = new ArrayList<Split>(3);
+        int[] queue = new int[verts.length];
+        int left = trim(verts, c, queue);
+        if(left==0){
+            return groups;
+        }
+
+        //everything the pivot can reach gets the forward color
+        int pivot = queue[0];
+        int forward = colors.getAndIncrement();
+        int backward = colors.getAndIncrement();
+        int head = 0;
+        int tail = 0;
+        color[pivot] = forward;
+        queue[tail++] = pivot;
+        while(head<tail){
+            int u = queue[head++];
+            for(int e = g.begin(u); e<g.end(u); e++){
+                int w = g.target(e);
+                if(color[w]==c){
+                    color[w] = forward;
+                    queue[tail++] = w;
+                }
+            }
+        }
+
+        //everything that can reach the pivot is either in its component or gets the backward color
+        int id = components.getAndIncrement();
+        head = 0;
+        tail = 0;
+        color[pivot] = DONE;
+        component[pivot] = id;
+        queue[tail++] = pivot;
+        while(head<tail){
+            int u = queue[head++];
+            for(int e = r.begin(u); e<r.end(u); e++){
+                int w = r.target(e);
+                if(color[w]==forward){ //reached both ways
+                    color[w] = DONE;
+                    component[w] = id;
+                    queue[tail++] = w;
+                }
+                else if(color[w]==c){
+                    color[w] = backward;
+                    queue[tail++] = w;
+                }
+            }
+        }
+
+        int[] counts = new int[3];
+        for(int i = 0; i<verts.length; i++){
+            int k = groupOf(color[verts[i]], forward, backward, c);
+            if(k>=0){
+                counts[k]++;
+            }
+        }
+        int[][] lists = {new int[counts[0]], new int[counts[1]], new int[counts[2]]};
+        counts = new int[3];
+        for(int i = 0; i<verts.length; i++){
+            int k = groupOf(color[verts[i]], forward, backward, c);
+            if(k>=0){
+                lists[k][counts[k]++] = verts[i];
+            }
+        }
+        int[] groupColors = {forward, backward, c};
+        for(int k = 0; k<3; k++){
+            if(lists[k].length>0){
+                groups.add(new Split(parent, lists[k], groupColors[k]));
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * The groupOf method returns which of the three new groups a color belongs to, or -1 if the vertex is done.
+     */
+    private static int groupOf(int col, int forward, int backward, int c){
+        if(col==forward){
+            return 0;
+        }
+        if(col==backward){
+            return 1;
+        }
+        if(col==c){
+            return 2;
+        }
+        return -1;
+    }
+
+    /**
+     * The trim method puts every vertex of a group that has no edges into or out of the rest of the group in a component
+     * of its own, repeating until none are left. The vertices still in the group are placed at the front of the queue.
+     *
+     * @param verts     the vertices in the group
+     * @param c         the color of the group
+     * @param queue     an array as long as the group to work in
+     * @return          the number of vertices still in the group
+     */
+    private int trim(int[] verts, int c, int[] queue){
+        int tail = 0;
+        for(int i = 0; i<verts.length; i++){
+            int v = verts[i];
+            int in = 0;
+            int out = 0;
+            for(int e = r.begin(v); e<r.end(v); e++){
+                if(color[r.target(e)]==c){
+                    in++;
+                }
+            }
+            for(int e = g.begin(v); e<g.end(v); e++){
+                if(color[g.target(e)]==c){
+                    out++;
+                }
+            }
+            inCount[v] = in;
+            outCount[v] = out;
+            if(in==0 || out==0){
+                queue[tail++] = v;
+            }
+        }
+
+        int head = 0;
+        while(head<tail){
+            int v = queue[head++];
+            if(color[v]!=c){ //already trimmed
+                continue;
+            }
+            color[v] = DONE;
+            component[v] = components.getAndIncrement();
+            for(int e = g.begin(v); e<g.end(v); e++){ //the vertices after it lose an edge in
+                int w = g.target(e);
+                if(color[w]==c && --inCount[w]==0 && outCount[w]>0){ //queue each vertex only once
+                    queue[tail++] = w;
+                }
+            }
+            for(int e = r.begin(v); e<r.end(v); e++){ //the vertices before it lose an edge out
+                int w = r.target(e);
+                if(color[w]==c && --outCount[w]==0 && inCount[w]>0){
+                    queue[tail++] = w;
+                }
+            }
+        }
+
+        int left = 0;
+        for(int i = 0; i<verts.length; i++){
+            if(color[verts[i]]==c){
+                queue[left++] = verts[i];
+            }
+        }
+        return left;
+    }
+
+    /**
+     * The Split class splits a group of vertices. Large groups left over are forked to the pool, and small ones are
+     * split by the same thread, so a long run of splits never builds up on the call stack.
+     */
+    private class Split extends CountedCompleter<Void>{
+        private static final long serialVersionUID = 1L;
+
+        private final int[] verts; //the vertices in the group
+        private final int c; //the color of the group
+
+        Split(Split parent, int[] verts, int c){
+            super(parent);
+            this.verts = verts;
+            this.c = c;
+        }
+
+        public void compute(){
+            ArrayDeque<Split> local = new ArrayDeque<Split>(); //the small groups this thread still has to split
+            local.push(this);
+            while(!local.isEmpty()){
+                Split s = local.pop();
+                for(Split group : split(s.verts, s.c, this)){
+                    if(group.verts.length>=THRESHOLD){
+                        addToPendingCount(1);
+                        group.fork();
+                    }
+                    else{
+                        local.push(group);
+                    }
+                }
+            }
+            tryComplete();
+        }
+    }
+}
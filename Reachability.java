@@ -0,0 +1,317 @@
+import java.io.File;
+import java.util.Arrays;
+/**
+ * The Reachability class is an index for answering whether one task leads to another, directly or through other tasks,
+ * without searching the whole graph each time. It is built over the graph of kernels, where every kernel is a single
+ * vertex, since the tasks in a kernel all lead to each other.
+ *
+ * Each kernel gets two intervals, one from the order Tarjan's algorithm finished the kernels in and one from a second
+ * search of the kernels that takes their edges in the opposite order. A kernel's interval runs from the lowest finishing
+ * number it can reach up to its own, so if one kernel leads to another, the second's intervals lie inside the first's.
+ * Most pairs that can't reach each other are ruled out by the topological order or by the intervals, and most pairs
+ * that can are confirmed by the second search's tree, whose interval holds exactly the kernels found below it. Only the
+ * pairs left over are searched, and that search skips every kernel whose intervals rule it out.
+ *
+ * The queries share one array of marks, so an index should only be queried by one thread at a time.
+ *
+ * Usage: java Reachability [task file] [task] [other task]
+ */
+public class Reachability
+{
+    private final int[] component; //the kernel of each vertex, numbered so the highest comes first topologically
+    private final int[] start; //where each kernel's vertices start in members, with one extra entry at the end
+    private final int[] members; //the vertices of each kernel, one kernel after another
+    private final CompactGraph kernels; //the graph of kernels, with one edge for each pair of kernels that are joined
+    private final CompactGraph reversed; //the graph of kernels with its edges reversed, for finding ancestors
+    private final int[] low; //the lowest kernel number each kernel can reach
+    private final int[] post; //the order the second search finished each kernel in
+    private final int[] postLow; //the lowest finishing number of the second search each kernel can reach
+    private final int[] treeLow; //the lowest finishing number of the second search below each kernel in its tree
+    private final int[] mark; //the query each kernel was last reached in
+    private final int[] stack; //the kernels waiting to be searched
+    private int query; //the number of the current query
+
+    /**
+     * Creates the reachability index of a graph.
+     *
+     * @param g     the compact graph
+     */
+    public Reachability(CompactGraph g){
+        int n = g.numVertices;
+        component = new int[n];
+        int count = new DepthFirstSearch(g).strongComponents(component);
+
+        //list the vertices kernel by kernel
+        start = new int[count+1];
+        for(int v = 0; v<n; v++){
+            start[component[v]+1]++;
+        }
+        for(int c = 0; c<count; c++){
+            start[c+1] += start[c];
+        }
+        members = new int[n];
+        int[] fill = new int[count];
+        for(int v = 0; v<n; v++){
+            members[start[component[v]] + fill[component[v]]++] = v;
+        }
+
+        //join each pair of kernels once, however many edges run between them
+        int[] offsets = new int[count+1];
+        int[] targets = new int[Math.max(16, count)];
+        int numEdges = 0;
+        int[] seen = fill; //the last kernel that was joined to each kernel, plus one
+        Arrays.fill(seen, 0);
+        for(int c = 0; c<count; c++){
+            for(int i = start[c]; i<start[c+1]; i++){
+                int v = members[i];
+                for(int e = g.begin(v); e<g.end(v); e++){
+                    int d = component[g.target(e)];
+                    if(d != c && seen[d] != c+1){
+                        seen[d] = c+1;
+                        if(numEdges == targets.length){
+                            targets = Arrays.copyOf(targets, numEdges*2);
+                        }
+                        targets[numEdges++] = d;
+                    }
+                }
+            }
+            offsets[c+1] = numEdges;
+        }
+        kernels = new CompactGraph(new String[count], offsets, Arrays.copyOf(targets, numEdges));
+        reversed = kernels.reverse();
+
+        //edges only lead to lower numbers, so every kernel's edges are done before it
+        low = new int[count];
+        for(int c = 0; c<count; c++){
+            low[c] = c;
+            for(int e = kernels.begin(c); e<kernels.end(c); e++){
+                low[c] = Math.min(low[c], low[kernels.target(e)]);
+            }
+        }
+
+        post = new int[count];
+        postLow = new int[count];
+        treeLow = new int[count];
+        mark = new int[count];
+        stack = new int[count];
+        secondSearch();
+    }
+
+    /**
+     * The secondSearch method searches the kernels from the first topologically, taking each kernel's edges from last to
+     * first, and numbers them in the order they finish. It fills in the second interval of each kernel and the part of it
+     * below the kernel in the search tree.
+     */
+    private void secondSearch(){
+        int count = kernels.numVertices;
+        int[] next = new int[count]; //the next edge to take from each kernel on the stack, counting down
+        boolean[] reached = new boolean[count];
+        int counter = 0;
+        for(int root = count-1; root>=0; root--){
+            if(reached[root]){
+                continue;
+            }
+            int top = 0;
+            stack[0] = root;
+            next[0] = kernels.end(root);
+            reached[root] = true;
+            treeLow[root] = Integer.MAX_VALUE;
+            postLow[root] = Integer.MAX_VALUE;
+            while(top>=0){
+                int c = stack[top];
+                if(next[top]>kernels.begin(c)){ //take the next edge
+                    int d = kernels.target(--next[top]);
+                    if(!reached[d]){
+                        top++;
+                        stack[top] = d;
+                        next[top] = kernels.end(d);
+                        reached[d] = true;
+                        treeLow[d] = Integer.MAX_VALUE;
+                        postLow[d] = Integer.MAX_VALUE;
+                    }
+                    else{ //finished already, since there are no cycles between kernels
+                        postLow[c] = Math.min(postLow[c], postLow[d]);
+                    }
+                }
+                else{ //every edge has been taken
+                    post[c] = counter++;
+                    treeLow[c] = Math.min(treeLow[c], post[c]);
+                    postLow[c] = Math.min(postLow[c], post[c]);
+                    top--;
+                    if(top>=0){ //pass what c reaches on to its parent
+                        int p = stack[top];
+                        treeLow[p] = Math.min(treeLow[p], treeLow[c]);
+                        postLow[p] = Math.min(postLow[p], postLow[c]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The main method loads a task file and prints what depends on a task and what it depends on, or whether one task
+     * leads to another.
+     *
+     * @param args  the task file, a task, and optionally another task
+     */
+    public static void main(String[] args){
+        try{
+            DirectedGraph dg = TaskFileLoader.load(new File(args[0]), true);
+            int a = dg.idOf(args[1].toLowerCase());
+            int b = args.length>2 ? dg.idOf(args[2].toLowerCase()) : 0;
+            if(a<0 || b<0){
+                System.out.println("graph does not contain the vertex");
+                return;
+            }
+            Reachability index = dg.reachability();
+            if(args.length>2){
+                System.out.println("\"" + args[1] + "\" " + (index.reaches(a, b) ? "must" : "need not") + " be done before \""
+                    + args[2] + "\".");
+                return;
+            }
+            System.out.println("Depends on \"" + args[1] + "\": " + list(dg, index.descendants(a)));
+            System.out.println("\"" + args[1] + "\" depends on: " + list(dg, index.ancestors(a)));
+        }
+        catch(Exception e){
+            System.out.println("File not found.");
+        }
+    }
+
+    /**
+     * The list method joins the names of some vertices with commas.
+     */
+    private static String list(DirectedGraph dg, int[] vertices){
+        StringBuilder line = new StringBuilder();
+        for(int i = 0; i<vertices.length; i++){
+            line.append(i == 0 ? "" : ", ").append(dg.vertex(vertices[i]).task);
+        }
+        return line.toString();
+    }
+
+    /**
+     * The reaches method returns whether there is a path from one vertex to another, so the first has to be done before
+     * the second. A vertex reaches itself.
+     *
+     * @param a     the vertex id to start from
+     * @param b     the vertex id to end at
+     * @return      true if a leads to b
+     */
+    public boolean reaches(int a, int b){
+        int ca = component[a];
+        int cb = component[b];
+        if(ca == cb){
+            return true;
+        }
+        if(ca < cb || !within(ca, cb)){ //b comes first topologically, or lies outside a's intervals
+            return false;
+        }
+        if(treeLow[ca] <= post[cb]){ //b is below a in the second search's tree
+            return true;
+        }
+        //search from a, skipping every kernel b lies outside of
+        query++;
+        int top = 0;
+        stack[top++] = ca;
+        mark[ca] = query;
+        while(top>0){
+            int c = stack[--top];
+            for(int e = kernels.begin(c); e<kernels.end(c); e++){
+                int d = kernels.target(e);
+                if(d == cb){
+                    return true;
+                }
+                if(mark[d] != query && d > cb && within(d, cb)){ //each kernel goes on the stack at most once
+                    mark[d] = query;
+                    stack[top++] = d;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The within method returns whether both of one kernel's intervals lie inside another's, which they must if the
+     * other kernel leads to it.
+     */
+    private boolean within(int outer, int inner){
+        return low[outer] <= low[inner] && postLow[outer] <= postLow[inner] && post[inner] <= post[outer];
+    }
+
+    /**
+     * The descendants method returns every vertex a vertex leads to, which are the tasks that can't be done until it is,
+     * kernel by kernel in topological order. The vertex itself is left out.
+     */
+    public int[] descendants(int v){
+        return collect(v, kernels);
+    }
+
+    /**
+     * The ancestors method returns every vertex that leads to a vertex, which are the tasks that have to be done before
+     * it, kernel by kernel in topological order. The vertex itself is left out.
+     */
+    public int[] ancestors(int v){
+        return collect(v, reversed);
+    }
+
+    /**
+     * The collect method gathers the vertices of every kernel reached from a vertex's kernel through the given graph of
+     * kernels, leaving the vertex itself out.
+     */
+    private int[] collect(int v, CompactGraph through){
+        query++;
+        int c = component[v];
+        int top = 0;
+        int found = 0;
+        stack[0] = c;
+        mark[c] = query;
+        int size = 1;
+        while(top<size){ //the stack doubles as the list of kernels reached
+            int k = stack[top++];
+            found += start[k+1]-start[k];
+            for(int e = through.begin(k); e<through.end(k); e++){
+                int d = through.target(e);
+                if(mark[d] != query){
+                    mark[d] = query;
+                    stack[size++] = d;
+                }
+            }
+        }
+        Arrays.sort(stack, 0, size);
+        int[] vertices = new int[found-1];
+        int i = 0;
+        for(int j = size-1; j>=0; j--){ //the highest kernel number comes first topologically
+            int k = stack[j];
+            for(int m = start[k]; m<start[k+1]; m++){
+                if(members[m] != v){
+                    vertices[i++] = members[m];
+                }
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * The numKernels method returns the number of kernels in the index.
+     */
+    public int numKernels(){
+        return kernels.numVertices;
+    }
+
+    /**
+     * The numKernelEdges method returns the number of edges between kernels, after joining each pair only once.
+     */
+    public int numKernelEdges(){
+        return kernels.numEdges;
+    }
+
+    /**
+     * The bytes method returns about how many bytes of memory the index takes up.
+     */
+    public long bytes(){
+        long n = component.length;
+        long count = kernels.numVertices;
+        long m = kernels.numEdges;
+        //the vertices' kernels and the members, the kernel lists, both graphs of kernels, and the labels and marks
+        return 4*(2*n) + 4*(count+1) + 2*(4*(count+1) + 4*m + 4*count) + 4*(6*count);
+    }
+}
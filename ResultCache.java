@@ -0,0 +1,215 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+/**
+ * The ResultCache class keeps the printed results of earlier TaskSorter runs in a directory, keyed by a hash of the input
+ * file's contents together with how it was sorted and printed, so running on the same file again can stream the stored
+ * result back out without building the graph. Each entry's last modified time is its last use, and once the entries
+ * take up more than the size limit, the least recently used ones are deleted. A stats file in the directory counts hits
+ * and misses across runs.
+ *
+ * The cache is turned on by the tasksorter.cache system property, which names the directory, and its size limit in
+ * bytes can be set with tasksorter.cache.size.
+ */
+public class ResultCache
+{
+    private static final long DEFAULT_SIZE = 64L<<20; //the size limit when none is given
+    private static final int BUFFER_SIZE = 1<<16; //the number of bytes of the input file hashed at a time
+    private static final long PRIME1 = 0x9E3779B185EBCA87L; //mixing constants for the hash
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final String SUFFIX = ".out"; //the end of every entry's file name
+    private static final String STATS = "stats"; //the name of the file that counts hits and misses
+
+    private final File dir; //the cache directory
+    private final long limit; //the most bytes the entries may take up
+    private long hits; //the hits counted so far, as of the last call to record
+    private long misses; //the misses counted so far, as of the last call to record
+
+    /**
+     * Creates a cache in the given directory, which is made if it doesn't exist.
+     */
+    public ResultCache(File dir, long limit){
+        this.dir = dir;
+        this.limit = limit;
+        dir.mkdirs();
+    }
+
+    /**
+     * The configured method returns the cache named by the system properties, or null if caching is off.
+     */
+    public static ResultCache configured(){
+        String dir = System.getProperty("tasksorter.cache");
+        if(dir == null){
+            return null;
+        }
+        return new ResultCache(new File(dir), Long.getLong("tasksorter.cache.size", DEFAULT_SIZE));
+    }
+
+    /**
+     * The key method hashes the contents of an input file together with a description of how it is sorted and printed.
+     * Two independently seeded 64 bit hashes are taken in the same pass and joined into the key.
+     *
+     * @param file      the input file
+     * @param options   everything else that changes the result, such as the sort mode and output format
+     * @return          the key, as 32 hex digits
+     * @throws IOException  if the file can't be read
+     */
+    public String key(File file, String options) throws IOException{
+        long h1 = PRIME1;
+        long h2 = PRIME2;
+        long length = 0;
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for(int read = channel.read(buffer); read != -1; read = channel.read(buffer)){
+                length += read;
+                buffer.flip();
+                while(buffer.remaining() >= 8){ //eight bytes at a time
+                    long k = buffer.getLong();
+                    h1 = mix(h1, k);
+                    h2 = mix(h2, Long.rotateLeft(k, 31));
+                }
+                buffer.compact(); //the leftover bytes are carried into the next read
+            }
+            buffer.flip();
+            while(buffer.hasRemaining()){ //the last few bytes of the file
+                long k = buffer.get() & 0xff;
+                h1 = mix(h1, k);
+                h2 = mix(h2, k ^ PRIME1);
+            }
+        }
+        for(byte b : options.getBytes(StandardCharsets.UTF_8)){
+            h1 = mix(h1, b);
+            h2 = mix(h2, b ^ PRIME1);
+        }
+        return String.format("%016x%016x", finish(h1 ^ length), finish(h2 + length));
+    }
+
+    /**
+     * The mix method folds eight bytes into a hash.
+     */
+    private static long mix(long h, long k){
+        return Long.rotateLeft(h ^ (k*PRIME2), 27)*PRIME1 + PRIME2;
+    }
+
+    /**
+     * The finish method scrambles the bits of a hash once every byte is in.
+     */
+    private static long finish(long h){
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME1;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * The open method opens the stored result for a key and marks it as just used.
+     *
+     * @return  a channel reading the stored result, or null if there isn't one
+     */
+    public FileChannel open(String key){
+        File entry = new File(dir, key + SUFFIX);
+        try{
+            FileChannel channel = FileChannel.open(entry.toPath(), StandardOpenOption.READ);
+            entry.setLastModified(System.currentTimeMillis());
+            return channel;
+        }
+        catch(IOException e){ //not stored, or evicted by another run
+            return null;
+        }
+    }
+
+    /**
+     * The newEntry method returns a temporary file in the cache directory to write a result into before it is stored.
+     */
+    public File newEntry() throws IOException{
+        return File.createTempFile("entry", ".tmp", dir);
+    }
+
+    /**
+     * The store method moves a finished result into the cache under a key, then evicts the least recently used entries
+     * until the cache is back under its size limit. A result bigger than the whole limit isn't kept.
+     *
+     * @param key       the key
+     * @param result    the temporary file holding the result
+     */
+    public void store(String key, File result) throws IOException{
+        if(result.length() > limit){
+            result.delete();
+            return;
+        }
+        //moving is atomic, so another run never sees a half written entry
+        Files.move(result.toPath(), new File(dir, key + SUFFIX).toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        File[] entries = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if(entries == null){
+            return;
+        }
+        long total = 0;
+        for(File entry : entries){
+            total += entry.length();
+        }
+        if(total <= limit){
+            return;
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified)); //least recently used first
+        for(int i = 0; i<entries.length && total > limit; i++){
+            total -= entries[i].length();
+            entries[i].delete();
+        }
+    }
+
+    /**
+     * The copy method streams a stored result out to a channel.
+     */
+    public static void copy(FileChannel from, WritableByteChannel to) throws IOException{
+        long size = from.size();
+        for(long done = 0; done<size; ){
+            done += from.transferTo(done, size-done, to);
+        }
+    }
+
+    /**
+     * The record method counts a hit or a miss in the stats file, under a lock so that runs at the same time don't lose
+     * each other's counts.
+     */
+    public void record(boolean hit) throws IOException{
+        try(FileChannel channel = FileChannel.open(new File(dir, STATS).toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE)){
+            channel.lock(); //released when the channel is closed
+            ByteBuffer counts = ByteBuffer.allocate(16);
+            while(counts.hasRemaining() && channel.read(counts, counts.position()) > 0){
+            }
+            hits = counts.position() == 16 ? counts.getLong(0) : 0;
+            misses = counts.position() == 16 ? counts.getLong(8) : 0;
+            if(hit){
+                hits++;
+            }
+            else{
+                misses++;
+            }
+            counts.clear();
+            counts.putLong(hits).putLong(misses).flip();
+            while(counts.hasRemaining()){
+                channel.write(counts, counts.position());
+            }
+        }
+    }
+
+    /**
+     * The stats method returns a line describing how often the cache has been hit, as of the last call to record.
+     */
+    public String stats(){
+        long runs = hits+misses;
+        return String.format("cache: %d hits, %d misses, %.1f%% hit rate", hits, misses, runs>0 ? 100.0*hits/runs : 0.0);
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+/**
+ * The ResultWriter class streams the kernels of a sorted graph to a Writer, one task name at a time, so no string is
+ * built for a kernel however many tasks it holds. The text format is the numbered list TaskSorter has always printed,
+ * the tsv format puts each kernel on a line of its own with its number and its tasks separated by tabs, and the json
+ * format writes one JSON object per line, first describing the file and then each kernel in order.
+ */
+public class ResultWriter
+{
+    private static final int BUFFER_SIZE = 1<<16; //the number of characters buffered before they are written out
+
+    /**
+     * The Format enum lists the ways the kernels can be written.
+     */
+    public enum Format{
+        TEXT, //the numbered list, with a line before saying whether there are mutually dependent tasks
+        TSV, //the kernel number, then each of its tasks, separated by tabs
+        JSON //one object per line: the file and whether it has a cycle, then the number and tasks of each kernel
+    }
+
+    private final Writer out; //where the results go
+    private final Format format; //how the results are written
+
+    /**
+     * Creates a result writer that writes to the given writer in the given format.
+     */
+    public ResultWriter(Writer out, Format format){
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * The toStandardOut method creates a result writer that writes straight to standard out through its own buffer,
+     * instead of through System.out, which flushes every line.
+     */
+    public static ResultWriter toStandardOut(Format format){
+        return to(new FileOutputStream(FileDescriptor.out), format);
+    }
+
+    /**
+     * The to method creates a result writer that writes UTF-8 to an output stream through its own buffer.
+     */
+    public static ResultWriter to(OutputStream stream, Format format){
+        Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        return new ResultWriter(new BufferedWriter(out, BUFFER_SIZE), format);
+    }
+
+    /**
+     * The write method writes out the kernels of a sorted graph and flushes the writer.
+     *
+     * @param fn        the name of the task file the graph came from
+     * @param cyclic    whether the graph has mutually dependent tasks
+     * @param k         the kernels in topological order
+     * @throws IOException  if the writer can't be written to
+     */
+    public void write(String fn, boolean cyclic, DirectedGraph.Kernel[] k) throws IOException{
+        if(format == Format.TEXT){
+            out.write("The file \"" + fn + "\" contains " + (cyclic ? "" : "no") + " mutually dependent tasks. You must:\n");
+        }
+        else if(format == Format.JSON){
+            out.write("{\"file\":");
+            writeJson(fn);
+            out.write(",\"cyclic\":" + cyclic + ",\"kernels\":" + k.length + "}\n");
+        }
+        for(int i = 0; i<k.length; i++){
+            writeKernel(i+1, k[i]);
+        }
+        if(format == Format.TEXT){
+            out.write("Thanks!\n");
+        }
+        out.flush();
+    }
+
+    /**
+     * The close method flushes and closes the underlying writer.
+     */
+    public void close() throws IOException{
+        out.close();
+    }
+
+    /**
+     * The writeKernel method writes a single kernel on a line of its own.
+     *
+     * @param number    the kernel's place in the order, starting from one
+     * @param kernel    the kernel
+     */
+    private void writeKernel(int number, DirectedGraph.Kernel kernel) throws IOException{
+        int size = kernel.verts.size();
+        if(format == Format.TEXT){
+            out.write(Integer.toString(number));
+            out.write(": ");
+            for(int i = 0; i<size; i++){
+                if(i>0){
+                    out.write(", ");
+                }
+                out.write(kernel.verts.get(i).task);
+            }
+        }
+        else if(format == Format.TSV){
+            out.write(Integer.toString(number));
+            for(int i = 0; i<size; i++){
+                out.write('\t');
+                out.write(kernel.verts.get(i).task);
+            }
+        }
+        else{
+            out.write("{\"kernel\":");
+            out.write(Integer.toString(number));
+            out.write(",\"tasks\":[");
+            for(int i = 0; i<size; i++){
+                if(i>0){
+                    out.write(',');
+                }
+                writeJson(kernel.verts.get(i).task);
+            }
+            out.write("]}");
+        }
+        out.write('\n');
+    }
+
+    /**
+     * The writeJson method writes a string as a quoted JSON string, escaping quotes, backslashes, and control characters.
+     * Runs of characters that need no escaping are written all at once.
+     */
+    private void writeJson(String s) throws IOException{
+        out.write('"');
+        int start = 0;
+        for(int i = 0; i<s.length(); i++){
+            char c = s.charAt(i);
+            if(c == '"' || c == '\\' || c < 0x20){
+                out.write(s, start, i-start);
+                if(c == '"' || c == '\\'){
+                    out.write('\\');
+                    out.write(c);
+                }
+                else{
+                    out.write(String.format("\\u%04x", (int)c));
+                }
+                start = i+1;
+            }
+        }
+        out.write(s, start, s.length()-start);
+        out.write('"');
+    }
+}
@@ -0,0 +1,227 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+/**
+ * The RunMetrics class records where the time went while sorting one file: how long loading, sorting, and writing out
+ * the order took, how big the graph and its kernels were, how deep the depth-first search went, and how many bytes were
+ * read. Each phase is a JFR event, and so is the whole run, so a flight recording taken with -XX:StartFlightRecording
+ * shows them next to the JVM's own events. When no recording is running, the events cost next to nothing.
+ *
+ * Setting the tasksorter.stats system property to a file also appends one JSON object per run to that file, or writes
+ * it to standard error if the property is -.
+ */
+public class RunMetrics
+{
+    private static final String REPORT = System.getProperty("tasksorter.stats"); //where the report goes, or null
+
+    /**
+     * The Phase enum lists the parts of a run that are timed.
+     */
+    public enum Phase{
+        LOAD, //reading the task file or mapping in the snapshot
+        REDUCE, //dropping the prerequisites implied by others, if tasksorter.reduce is set
+        CYCLE_CHECK, //checking for cycles before sorting, which only the kosaraju mode does
+        SORT, //finding the kernels
+        WRITE //writing out the order
+    }
+
+    /**
+     * The PhaseEvent class is the JFR event for one phase of a run, which lasts as long as the phase.
+     */
+    @Name("tasksorter.Phase")
+    @Label("Task Sorter Phase")
+    @Category("Task Sorter")
+    @Description("One phase of sorting a task file")
+    static class PhaseEvent extends Event{
+        @Label("File")
+        String file;
+
+        @Label("Phase")
+        String phase;
+    }
+
+    /**
+     * The RunEvent class is the JFR event for a whole run, which lasts from the start of loading to the end of writing.
+     */
+    @Name("tasksorter.Run")
+    @Label("Task Sorter Run")
+    @Category("Task Sorter")
+    @Description("Sorting one task file, with the size of its graph")
+    static class RunEvent extends Event{
+        @Label("File")
+        String file;
+
+        @Label("Sort Mode")
+        String mode;
+
+        @Label("Vertices")
+        int vertices;
+
+        @Label("Edges")
+        long edges;
+
+        @Label("Kernels")
+        int kernels;
+
+        @Label("Largest Kernel")
+        int largestKernel;
+
+        @Label("Maximum Search Depth")
+        @Description("-1 if no search was run, as when the kernels were read from a snapshot")
+        int maxDepth;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytesRead;
+
+        @Label("Cyclic")
+        boolean cyclic;
+    }
+
+    private final String file; //the name of the file being sorted
+    private final DirectedGraph.SortMode mode; //how it is sorted
+    private final long[] nanos; //how long each phase took
+    private final RunEvent run; //the event for the whole run
+    private PhaseEvent current; //the event for the phase in progress
+    private long started; //when the phase in progress started
+    private long bytesRead; //the number of bytes of input read
+
+    /**
+     * Creates the metrics for sorting a file, starting the run.
+     */
+    public RunMetrics(String file, DirectedGraph.SortMode mode){
+        this.file = file;
+        this.mode = mode;
+        nanos = new long[Phase.values().length];
+        run = new RunEvent();
+        run.begin();
+    }
+
+    /**
+     * The begin method starts timing a phase.
+     */
+    public void begin(Phase phase){
+        current = new PhaseEvent();
+        current.begin();
+        started = System.nanoTime();
+    }
+
+    /**
+     * The end method stops timing a phase, adding its time to the phase's total.
+     */
+    public void end(Phase phase){
+        nanos[phase.ordinal()] += System.nanoTime() - started;
+        current.end();
+        if(current.shouldCommit()){ //only filled in while a recording wants it
+            current.file = file;
+            current.phase = phase.name().toLowerCase();
+            current.commit();
+        }
+    }
+
+    /**
+     * The read method counts bytes of input read.
+     */
+    public void read(long bytes){
+        bytesRead += bytes;
+    }
+
+    /**
+     * The finish method ends the run, recording the size of the graph and the kernels the graph's last sort found, and
+     * writes the report if one was asked for.
+     *
+     * @param dg    the sorted graph
+     * @param k     its kernels
+     */
+    public void finish(DirectedGraph dg, DirectedGraph.Kernel[] k) throws IOException{
+        finish(dg, k, dg.foundCycle(), dg.searchDepth());
+    }
+
+    /**
+     * The finish method ends the run with kernels that didn't come from sorting the graph, such as ones read from a
+     * snapshot, so whether they show a cycle and how deep the search went are given rather than asked of the graph.
+     * The edges are counted where they are kept, on disk or in memory.
+     *
+     * @param dg        the graph
+     * @param k         its kernels
+     * @param cyclic    whether the kernels show a cycle
+     * @param maxDepth  how deep the search for the kernels went, or -1 if it isn't known
+     */
+    public void finish(DirectedGraph dg, DirectedGraph.Kernel[] k, boolean cyclic, int maxDepth) throws IOException{
+        run.end();
+        if(!run.shouldCommit() && REPORT == null){ //no one is listening
+            return;
+        }
+        int largest = 0;
+        for(DirectedGraph.Kernel kernel : k){
+            largest = Math.max(largest, kernel.verts.size());
+        }
+        run.file = file;
+        run.mode = mode.name().toLowerCase();
+        run.vertices = dg.numVertices;
+        run.edges = dg.externalEdges() != null ? dg.externalEdges().numEdges : dg.numEdges;
+        run.kernels = k.length;
+        run.largestKernel = largest;
+        run.maxDepth = maxDepth;
+        run.bytesRead = bytesRead;
+        run.cyclic = cyclic;
+        run.commit();
+        if(REPORT != null){
+            report();
+        }
+    }
+
+    /**
+     * The report method writes the run out as one line of JSON. The whole line is written at once, so runs sorted at the
+     * same time don't mix their lines.
+     */
+    private void report() throws IOException{
+        StringBuilder line = new StringBuilder("{\"file\":\"");
+        for(int i = 0; i<file.length(); i++){
+            char c = file.charAt(i);
+            if(c == '"' || c == '\\'){
+                line.append('\\').append(c);
+            }
+            else if(c < 0x20){
+                line.append(String.format("\\u%04x", (int)c));
+            }
+            else{
+                line.append(c);
+            }
+        }
+        line.append("\",\"mode\":\"").append(run.mode).append('"');
+        for(Phase phase : Phase.values()){
+            line.append(",\"").append(phase.name().toLowerCase()).append("_ms\":")
+                .append(String.format(Locale.ROOT, "%.3f", nanos[phase.ordinal()]/1e6));
+        }
+        line.append(",\"vertices\":").append(run.vertices)
+            .append(",\"edges\":").append(run.edges)
+            .append(",\"kernels\":").append(run.kernels)
+            .append(",\"largest_kernel\":").append(run.largestKernel)
+            .append(",\"max_depth\":").append(run.maxDepth >= 0 ? String.valueOf(run.maxDepth) : "null")
+            .append(",\"bytes_read\":").append(run.bytesRead)
+            .append(",\"cyclic\":").append(run.cyclic)
+            .append("}\n");
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        if(REPORT.equals("-")){
+            synchronized(System.err){
+                System.err.write(bytes);
+                System.err.flush();
+            }
+            return;
+        }
+        synchronized(RunMetrics.class){
+            try(OutputStream out = new FileOutputStream(REPORT, true)){
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+/**
+ * The Schedule class works out when each task can start, on the graph of kernels, where every kernel is a single step
+ * that takes as long as all of its tasks put together, since mutually dependent tasks have to be done as one. Going
+ * through the kernels in topological order, each kernel's depth is one more than its deepest prerequisite and its
+ * earliest start is the latest finish of its prerequisites, and going back through them in reverse, its latest start is
+ * the earliest latest start of what depends on it, less its own duration. The slack of a task is how far its start can
+ * slip without making everything finish later, and the critical path is the chain of kernels with no slack that ends the
+ * latest. Both passes follow each edge once, without recursion.
+ *
+ * Usage: java Schedule [task file]
+ */
+public class Schedule
+{
+    private final int[] component; //the kernel of each vertex, numbered so the highest comes first topologically
+    private final int[] start; //where each kernel's vertices start in members, with one extra entry at the end
+    private final int[] members; //the vertices of each kernel, one kernel after another
+    private final int[] depth; //the depth of each kernel, zero for kernels with no prerequisites
+    private final double[] duration; //how long each kernel takes
+    private final double[] earliest; //the earliest start of each kernel
+    private final double[] latest; //the latest start of each kernel that doesn't hold up the finish
+    private final int[] critical; //the kernels on the critical path, first to last
+    private final double length; //the time it takes to finish everything
+
+    /**
+     * Creates the schedule of a graph.
+     *
+     * @param g         the compact graph
+     * @param taskTime  how long each vertex takes
+     */
+    public Schedule(CompactGraph g, double[] taskTime){
+        int n = g.numVertices;
+        component = new int[n];
+        int count = new DepthFirstSearch(g).strongComponents(component);
+        depth = new int[count];
+        duration = new double[count];
+        earliest = new double[count];
+        latest = new double[count];
+
+        //list the vertices kernel by kernel, so each kernel's edges can be followed together
+        start = new int[count+1];
+        for(int v = 0; v<n; v++){
+            start[component[v]+1]++;
+            duration[component[v]] += taskTime[v];
+        }
+        for(int c = 0; c<count; c++){
+            start[c+1] += start[c];
+        }
+        members = new int[n];
+        int[] fill = new int[count];
+        for(int v = 0; v<n; v++){
+            members[start[component[v]] + fill[component[v]]++] = v;
+        }
+
+        //forward through the kernels in topological order
+        int[] before = new int[count]; //the prerequisite that finishes last, on the way to the critical path
+        Arrays.fill(before, -1);
+        double finish = 0;
+        int last = -1; //the kernel that finishes last
+        for(int c = count-1; c>=0; c--){
+            double end = earliest[c] + duration[c];
+            if(last < 0 || end > finish){
+                finish = end;
+                last = c;
+            }
+            for(int i = start[c]; i<start[c+1]; i++){
+                int v = members[i];
+                for(int e = g.begin(v); e<g.end(v); e++){
+                    int d = component[g.target(e)];
+                    if(d == c){ //inside the kernel
+                        continue;
+                    }
+                    if(depth[c]+1 > depth[d]){
+                        depth[d] = depth[c]+1;
+                    }
+                    if(before[d] < 0 || end > earliest[d]){
+                        earliest[d] = end;
+                        before[d] = c;
+                    }
+                }
+            }
+        }
+        length = finish;
+
+        //back through the kernels in reverse, starting each as late as it can
+        for(int c = 0; c<count; c++){
+            double end = length;
+            for(int i = start[c]; i<start[c+1]; i++){
+                int v = members[i];
+                for(int e = g.begin(v); e<g.end(v); e++){
+                    int d = component[g.target(e)];
+                    if(d != c && latest[d] < end){
+                        end = latest[d];
+                    }
+                }
+            }
+            latest[c] = end - duration[c];
+        }
+
+        //follow the prerequisites that finish last back from the kernel that finishes last
+        int steps = 0;
+        for(int c = last; c>=0; c = before[c]){
+            steps++;
+        }
+        critical = new int[steps];
+        for(int c = last; c>=0; c = before[c]){
+            critical[--steps] = c;
+        }
+    }
+
+    /**
+     * The main method loads a task file and prints when each task can start, then the critical path. A field of the
+     * form @number on a task's line gives how long the task takes, and tasks without one take one unit of time.
+     *
+     * @param args  the task file
+     */
+    public static void main(String[] args){
+        try{
+            DirectedGraph dg = TaskFileLoader.load(new File(args[0]), true);
+            Schedule s = dg.schedule();
+            Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                StandardCharsets.UTF_8), 1<<16);
+            out.write("task\tdepth\tearliest start\tslack\n");
+            for(int v = 0; v<dg.numVertices; v++){
+                out.write(dg.vertex(v).task + "\t" + s.depth(v) + "\t" + s.earliestStart(v) + "\t" + s.slack(v) + "\n");
+            }
+            out.write("critical path of length " + s.length() + ":");
+            int[] path = s.criticalPath();
+            for(int i = 0; i<path.length; i++){
+                out.write(i == 0 ? " " : " -> ");
+                int[] tasks = s.tasksOf(path[i]);
+                for(int k = 0; k<tasks.length; k++){ //a kernel is named by all of its tasks
+                    out.write((k == 0 ? "" : ", ") + dg.vertex(tasks[k]).task);
+                }
+            }
+            out.write("\n");
+            out.flush();
+        }
+        catch(Exception e){
+            System.out.println("File not found.");
+        }
+    }
+
+    /**
+     * The kernel method returns the number of the kernel a vertex is in.
+     */
+    public int kernel(int v){
+        return component[v];
+    }
+
+    /**
+     * The tasksOf method returns the vertices in a kernel.
+     */
+    public int[] tasksOf(int kernel){
+        return Arrays.copyOfRange(members, start[kernel], start[kernel+1]);
+    }
+
+    /**
+     * The depth method returns how many kernels come before a vertex's kernel on the longest chain of prerequisites
+     * leading to it, which is the earliest step it can start at if every kernel takes one step.
+     */
+    public int depth(int v){
+        return depth[component[v]];
+    }
+
+    /**
+     * The earliestStart method returns the earliest time a vertex can start, once everything it depends on has finished.
+     */
+    public double earliestStart(int v){
+        return earliest[component[v]];
+    }
+
+    /**
+     * The slack method returns how much later than its earliest start a vertex can start without making everything
+     * finish later.
+     */
+    public double slack(int v){
+        return latest[component[v]] - earliest[component[v]];
+    }
+
+    /**
+     * The length method returns the time it takes to finish every task, which is the length of the critical path.
+     */
+    public double length(){
+        return length;
+    }
+
+    /**
+     * The criticalPath method returns the kernels on the critical path, from the first to start to the last to finish.
+     */
+    public int[] criticalPath(){
+        return critical.clone();
+    }
+}
@@ -0,0 +1,227 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+/**
+ * The SyntheticGraphs class builds the large synthetic graphs the benchmarks run on: random graphs with and without
+ * cycles, long chains, a wide fan-in onto a single task, many small cycles and one giant cycle. The vertices are left
+ * unnamed, since the benchmarks never print them, unless the graph is written out as a task file.
+ */
+public class SyntheticGraphs
+{
+    /**
+     * The shape method builds one of the benchmark suite's kinds of graph with n vertices: dag for a random acyclic graph
+     * with five edges per vertex, chain for a long chain, fanin for a wide fan-in, smallsccs for many cycles of four
+     * vertices and giantscc for one cycle through every vertex with two random edges each besides.
+     *
+     * @param shape     the kind of graph
+     * @param n         the number of vertices
+     * @return          the graph
+     */
+    public static CompactGraph shape(String shape, int n){
+        if(shape.equals("dag")){
+            return randomDag(n, 5, 1);
+        }
+        if(shape.equals("chain")){
+            return chain(n, false);
+        }
+        if(shape.equals("fanin")){
+            return fanIn(n);
+        }
+        if(shape.equals("smallsccs")){
+            return smallCycles(n, 4, 1);
+        }
+        if(shape.equals("giantscc")){
+            return giantCycle(n, 2, 1);
+        }
+        throw new IllegalArgumentException("Unknown shape of graph: " + shape);
+    }
+
+    /**
+     * The randomGraph method builds a compact graph where each vertex has the given number of edges, each leading to any
+     * random vertex, so the graph will usually have cycles.
+     *
+     * @param n         the number of vertices
+     * @param degree    the number of edges leaving each vertex
+     * @param seed      the seed for the random edges
+     * @return          the graph
+     */
+    public static CompactGraph randomGraph(int n, int degree, long seed){
+        Random random = new Random(seed);
+        int[] offsets = new int[n+1];
+        int[] targets = new int[n*degree];
+        for(int v = 0; v<n; v++){
+            offsets[v+1] = offsets[v] + degree;
+            for(int e = offsets[v]; e<offsets[v+1]; e++){
+                targets[e] = random.nextInt(n);
+            }
+        }
+        return new CompactGraph(new String[n], offsets, targets);
+    }
+
+    /**
+     * The randomDag method builds a compact graph where each vertex has the given number of edges, each leading to a
+     * random vertex with a higher id, so the graph has no cycles.
+     *
+     * @param n         the number of vertices
+     * @param degree    the number of edges leaving each vertex, except near the end where there are too few vertices
+     * @param seed      the seed for the random edges
+     * @return          the graph
+     */
+    public static CompactGraph randomDag(int n, int degree, long seed){
+        Random random = new Random(seed);
+        int[] offsets = new int[n+1];
+        for(int v = 0; v<n; v++){
+            offsets[v+1] = offsets[v] + Math.min(degree, n-1-v);
+        }
+        int[] targets = new int[offsets[n]];
+        for(int v = 0; v<n; v++){
+            for(int e = offsets[v]; e<offsets[v+1]; e++){
+                targets[e] = v+1+random.nextInt(n-1-v);
+            }
+        }
+        return new CompactGraph(new String[n], offsets, targets);
+    }
+
+    /**
+     * The fanIn method builds a compact graph where every vertex but the last is a prerequisite of the last vertex, so the
+     * last vertex has a huge number of edges coming in.
+     *
+     * @param n     the number of vertices
+     * @return      the graph
+     */
+    public static CompactGraph fanIn(int n){
+        int[] offsets = new int[n+1];
+        int[] targets = new int[Math.max(0,n-1)];
+        for(int v = 0; v<n; v++){
+            offsets[v+1] = Math.min(v+1,n-1);
+            if(v<n-1){
+                targets[v] = n-1;
+            }
+        }
+        return new CompactGraph(new String[n], offsets, targets);
+    }
+
+    /**
+     * The smallCycles method builds a compact graph out of many small cycles, each of the given size, with an edge from
+     * the start of each cycle to the start of a random later cycle, so every kernel is small and the kernels form an
+     * acyclic graph.
+     *
+     * @param n     the number of vertices
+     * @param size  the number of vertices in each cycle, except the last one, which may be smaller
+     * @param seed  the seed for the random edges between cycles
+     * @return      the graph
+     */
+    public static CompactGraph smallCycles(int n, int size, long seed){
+        Random random = new Random(seed);
+        int[] from = new int[2*n];
+        int[] to = new int[2*n];
+        int m = 0;
+        for(int first = 0; first<n; first += size){
+            int last = Math.min(first+size, n)-1;
+            for(int v = first; v<last; v++){
+                from[m] = v;
+                to[m++] = v+1;
+            }
+            if(last>first){ //close the cycle
+                from[m] = last;
+                to[m++] = first;
+            }
+            if(last+1<n){ //lead on to a later cycle
+                int cycles = (n-1-last+size-1)/size;
+                from[m] = first;
+                to[m++] = last+1+random.nextInt(cycles)*size;
+            }
+        }
+        return CompactGraph.build(new String[n], from, to, m);
+    }
+
+    /**
+     * The giantCycle method builds a compact graph where every vertex is on one cycle through all of them, with the given
+     * number of extra edges from each vertex to random vertices, so the whole graph is a single kernel.
+     *
+     * @param n         the number of vertices
+     * @param extra     the number of random edges leaving each vertex besides the cycle
+     * @param seed      the seed for the random edges
+     * @return          the graph
+     */
+    public static CompactGraph giantCycle(int n, int extra, long seed){
+        Random random = new Random(seed);
+        int[] offsets = new int[n+1];
+        int[] targets = new int[n*(extra+1)];
+        for(int v = 0; v<n; v++){
+            offsets[v+1] = offsets[v] + extra+1;
+            targets[offsets[v]] = (v+1)%n;
+            for(int e = offsets[v]+1; e<offsets[v+1]; e++){
+                targets[e] = random.nextInt(n);
+            }
+        }
+        return new CompactGraph(new String[n], offsets, targets);
+    }
+
+    /**
+     * The chain method builds a compact graph where each vertex is the prerequisite of the next, optionally with an edge
+     * from the last vertex back to the first.
+     *
+     * @param n         the number of vertices
+     * @param closed    whether to close the chain into a cycle
+     * @return          the chain
+     */
+    public static CompactGraph chain(int n, boolean closed){
+        int m = closed ? n : n-1;
+        int[] offsets = new int[n+1];
+        int[] targets = new int[m];
+        for(int v = 0; v<n; v++){
+            offsets[v+1] = Math.min(v+1,m);
+            if(v<m){
+                targets[v] = (v+1)%n;
+            }
+        }
+        return new CompactGraph(new String[n], offsets, targets);
+    }
+
+    /**
+     * The named method copies a compact graph with every vertex named by the given prefix followed by its id.
+     *
+     * @param g         the graph
+     * @param prefix    what each name starts with
+     * @return          the named graph
+     */
+    public static CompactGraph named(CompactGraph g, String prefix){
+        String[] names = new String[g.numVertices];
+        int[] offsets = new int[g.numVertices+1];
+        int[] targets = new int[g.numEdges];
+        for(int v = 0; v<g.numVertices; v++){
+            names[v] = prefix + v;
+            offsets[v+1] = g.end(v);
+        }
+        for(int e = 0; e<g.numEdges; e++){
+            targets[e] = g.target(e);
+        }
+        return new CompactGraph(names, offsets, targets);
+    }
+
+    /**
+     * The writeTaskFile method writes a compact graph out as a task file, with each vertex named t and its id, followed
+     * by its prerequisites.
+     *
+     * @param g         the graph
+     * @param file      the file to write
+     * @throws IOException  if the file can't be written
+     */
+    public static void writeTaskFile(CompactGraph g, File file) throws IOException{
+        CompactGraph r = g.reverse(); //the edges into each vertex are its prerequisites
+        try(BufferedWriter out = new BufferedWriter(new FileWriter(file), 1<<16)){
+            for(int v = 0; v<r.numVertices; v++){
+                out.write("t");
+                out.write(Integer.toString(v));
+                for(int e = r.begin(v); e<r.end(v); e++){
+                    out.write("\tt");
+                    out.write(Integer.toString(r.target(e)));
+                }
+                out.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,434 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+/**
+ * The TaskFileLoader class builds a directed graph from a task file in a single pass. The file is read through a buffered
+ * channel and split into tasks by scanning the bytes for tabs and newlines, and each task name is lowercased once as it
+ * is read and looked up in the graph's table of names straight from the bytes, so no String is made for it. Edges are
+ * handed to the graph in batches.
+ *
+ * A large file can also be split into shards at line breaks and each shard read into a graph of its own on a fork/join
+ * pool, with the shards' graphs merged in file order afterwards, so the result is the same as reading it in one pass.
+ */
+public class TaskFileLoader
+{
+    private static final int BUFFER_SIZE = 1<<16; //the number of bytes read from the file at a time
+    private static final int BATCH_SIZE = 1024; //the number of edges handed to the graph at a time
+    private static final long MIN_SHARD = 1<<20; //the fewest bytes worth reading on a thread of their own
+    private static final long MAX_SHARD = 1L<<30; //the most bytes read into one shard
+
+    private final DirectedGraph dg; //the graph being built
+    private byte[] token; //the bytes of the task name currently being read
+    private int length; //the number of bytes in the current task name
+    private boolean ascii; //whether the current task name is plain ascii
+    private boolean firstField; //whether the current task name is the first one on its line
+    private int task; //the id of the task the current line is about, or -1 if it hasn't been read
+    private int[] starts; //the prereq of each edge read since the last batch
+    private int[] ends; //the task of each edge read since the last batch
+    private int numEdges;
+    private ExternalGraph.Builder spill; //where the edges go when they are kept on disk, or null if they go to the graph
+
+    /**
+     * Creates a loader that adds the tasks it reads to the given graph.
+     */
+    private TaskFileLoader(DirectedGraph dg){
+        this.dg = dg;
+        token = new byte[64];
+        ascii = true;
+        firstField = true;
+        task = -1;
+        starts = new int[BATCH_SIZE];
+        ends = new int[BATCH_SIZE];
+    }
+
+    /**
+     * The load method reads a task file and creates a directed graph out of it. Each line is a task followed by the
+     * tasks that need to be completed before it, separated by tabs, and every prerequisite gets an edge to its task. A
+     * field of the form @number after the task is how long the task takes, rather than a prerequisite.
+     *
+     * @param file  the task file
+     * @return      the directed graph of the tasks
+     * @throws IOException  if the file can't be read
+     */
+    public static DirectedGraph load(File file) throws IOException{
+        return load(file, false);
+    }
+
+    /**
+     * The load method reads a task file and creates a directed graph out of it, optionally keeping only one edge for a
+     * prerequisite that is listed more than once for the same task.
+     *
+     * @param file      the task file
+     * @param unique    whether to drop repeated edges as they are read
+     * @return          the directed graph of the tasks
+     * @throws IOException  if the file can't be read
+     */
+    public static DirectedGraph load(File file, boolean unique) throws IOException{
+        DirectedGraph graph = new DirectedGraph();
+        if(unique){
+            graph.rejectDuplicateEdges();
+        }
+        TaskFileLoader loader = new TaskFileLoader(graph);
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while(channel.read(buffer) != -1){
+                loader.scan(buffer.array(), buffer.position());
+                buffer.clear();
+            }
+        }
+        loader.endLine(); //the last line may not end with a newline
+        loader.flush();
+        return loader.dg;
+    }
+
+    /**
+     * The loadParallel method reads a task file on the common fork/join pool.
+     *
+     * @param file      the task file
+     * @param unique    whether to drop repeated edges
+     * @return          the directed graph of the tasks
+     * @throws IOException  if the file can't be read
+     */
+    public static DirectedGraph loadParallel(File file, boolean unique) throws IOException{
+        return loadParallel(file, unique, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * The loadParallel method reads a task file into a directed graph, splitting it into one shard per thread of the
+     * pool, each starting at the beginning of a line. Each shard is read into its own graph, with its own table of task
+     * names, so the threads never wait on each other. The shards' graphs are then merged in file order, which numbers
+     * the tasks and keeps the edges in the same order as reading the file in one pass would. Files too small to be
+     * worth splitting are read in one pass.
+     *
+     * @param file      the task file
+     * @param unique    whether to drop repeated edges
+     * @param pool      the pool to read the shards on
+     * @return          the directed graph of the tasks
+     * @throws IOException  if the file can't be read
+     */
+    public static DirectedGraph loadParallel(File file, boolean unique, ForkJoinPool pool) throws IOException{
+        long size = file.length();
+        int shards = (int)Math.min(Math.max(pool.getParallelism(), (size+MAX_SHARD-1)/MAX_SHARD), size/MIN_SHARD);
+        return loadParallel(file, unique, pool, shards);
+    }
+
+    /**
+     * The loadParallel method reads a task file into a directed graph in the given number of shards, however small they
+     * come out, or in one pass if that is less than two. The tests use it to split small files.
+     *
+     * @param file      the task file
+     * @param unique    whether to drop repeated edges
+     * @param pool      the pool to read the shards on
+     * @param shards    the number of shards
+     * @return          the directed graph of the tasks
+     * @throws IOException  if the file can't be read
+     */
+    static DirectedGraph loadParallel(File file, boolean unique, ForkJoinPool pool, int shards) throws IOException{
+        if(shards <= 1){
+            return load(file, unique);
+        }
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            long[] bounds = lineBounds(channel, channel.size(), shards);
+            ArrayList<ForkJoinTask<DirectedGraph>> reads = new ArrayList<>();
+            for(int s = 0; s<shards; s++){
+                final long from = bounds[s];
+                final long to = bounds[s+1];
+                if(from < to){
+                    reads.add(pool.submit(() -> loadRange(channel, from, to, unique)));
+                }
+            }
+            DirectedGraph[] parts = new DirectedGraph[reads.size()];
+            int vertexHint = 0;
+            int edgeHint = 0;
+            for(int i = 0; i<parts.length; i++){
+                parts[i] = reads.get(i).get();
+                vertexHint += parts[i].numVertices;
+                edgeHint += parts[i].numEdges;
+            }
+            DirectedGraph graph = new DirectedGraph(vertexHint, edgeHint);
+            graph.usePool(pool);
+            graph.addGraphs(parts);
+            if(unique){ //a repeat can be in a different shard than the first copy
+                graph.rejectDuplicateEdges();
+            }
+            return graph;
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading " + file, e);
+        }
+        catch(ExecutionException e){
+            if(e.getCause() instanceof IOException){
+                throw (IOException)e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * The lineBounds method splits a file into about equal shards, moving each split forward to just after the next
+     * line break. A shard can be left empty if a line is longer than it.
+     *
+     * @return  where each shard starts, with the end of the file at the end
+     */
+    private static long[] lineBounds(FileChannel channel, long size, int shards) throws IOException{
+        long[] bounds = new long[shards+1];
+        bounds[shards] = size;
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for(int s = 1; s<shards; s++){
+            long pos = Math.max(size/shards*s - 1, bounds[s-1]); //the byte before the split could be a line break
+            bounds[s] = size;
+            while(pos < size && bounds[s] == size){
+                buffer.clear();
+                int read = channel.read(buffer, pos);
+                if(read < 0){
+                    break;
+                }
+                for(int i = 0; i<read; i++){
+                    if(buffer.get(i) == '\n'){
+                        bounds[s] = pos+i+1;
+                        break;
+                    }
+                }
+                pos += read;
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * The loadRange method reads the lines in part of a file into a graph of their own.
+     *
+     * @param channel   the file, which is only read at given positions so every shard can share it
+     * @param from      where the first line starts
+     * @param to        just after the last line
+     * @param unique    whether to drop repeated edges as they are read
+     * @return          the graph of the lines' tasks
+     */
+    private static DirectedGraph loadRange(FileChannel channel, long from, long to, boolean unique) throws IOException{
+        DirectedGraph graph = new DirectedGraph();
+        if(unique){
+            graph.rejectDuplicateEdges();
+        }
+        TaskFileLoader loader = new TaskFileLoader(graph);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for(long pos = from; pos<to; ){
+            buffer.clear();
+            buffer.limit((int)Math.min(BUFFER_SIZE, to-pos));
+            int read = channel.read(buffer, pos);
+            if(read < 0){
+                break;
+            }
+            loader.scan(buffer.array(), read);
+            pos += read;
+        }
+        loader.endLine();
+        loader.flush();
+        return graph;
+    }
+
+    /**
+     * The loadExternal method reads a task file into a directed graph whose edges are kept on disk, spilled in sorted
+     * runs, so that a file with more edges than fit in memory can still be sorted with the EXTERNAL sort mode. Only the
+     * tasks are kept in memory.
+     *
+     * @param file      the task file
+     * @param budget    about how many bytes of memory the edges may use
+     * @param dir       the directory to spill the edges into
+     * @return          the directed graph of the tasks, with its edges on disk
+     * @throws IOException  if the file can't be read or the edges can't be spilled
+     */
+    public static DirectedGraph loadExternal(File file, long budget, File dir) throws IOException{
+        TaskFileLoader loader = new TaskFileLoader(new DirectedGraph());
+        loader.spill = new ExternalGraph.Builder(budget, dir);
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while(channel.read(buffer) != -1){
+                loader.scan(buffer.array(), buffer.position());
+                buffer.clear();
+            }
+            loader.endLine();
+            loader.flush();
+        }
+        catch(IOException | RuntimeException | Error e){ //don't leave the runs spilled so far on disk
+            loader.spill.discard();
+            throw e;
+        }
+        loader.dg.useExternalEdges(loader.spill.build(loader.dg.numVertices));
+        return loader.dg;
+    }
+
+    /**
+     * The scan method splits a block of bytes from the file into task names. A task name can continue from one block
+     * into the next.
+     *
+     * @param bytes     the block of bytes
+     * @param count     the number of bytes in the block
+     */
+    private void scan(byte[] bytes, int count) throws IOException{
+        for(int i = 0; i<count; i++){
+            byte b = bytes[i];
+            if(b == '\t'){
+                endField();
+            }
+            else if(b == '\n'){
+                endLine();
+            }
+            else if(b != '\r'){ //windows line endings are ignored
+                if(length == token.length){
+                    token = Arrays.copyOf(token, length*2);
+                }
+                if(b >= 'A' && b <= 'Z'){ //lowercase ascii letters as they are read
+                    b += 'a'-'A';
+                }
+                else if(b < 0){ //part of a multi-byte character
+                    ascii = false;
+                }
+                token[length++] = b;
+            }
+        }
+    }
+
+    /**
+     * The endField method adds the task name that was just read to the graph. The first name on a line is the task,
+     * and each name after it gets an edge to that task. Empty names are skipped.
+     */
+    private void endField() throws IOException{
+        if(length > 0 && !firstField && token[0] == '@' && task >= 0 && readTime()){
+            length = 0;
+            ascii = true;
+        }
+        else if(length > 0){
+            int id = takeToken(); //the graph numbers new tasks in the order they appear in the file
+            if(firstField){
+                task = id;
+            }
+            else if(task >= 0){ //add an edge from the prereq to the task
+                starts[numEdges] = id;
+                ends[numEdges] = task;
+                numEdges++;
+                if(numEdges == BATCH_SIZE){
+                    flush();
+                }
+            }
+        }
+        firstField = false;
+    }
+
+    /**
+     * The flush method hands the edges read since the last batch to the graph, or to disk if they are kept there.
+     */
+    private void flush() throws IOException{
+        if(spill != null){
+            for(int i = 0; i<numEdges; i++){
+                spill.addEdge(starts[i], ends[i]);
+            }
+        }
+        else{
+            dg.addEdges(starts, ends, numEdges);
+        }
+        numEdges = 0;
+    }
+
+    /**
+     * The readTime method reads the current field as a duration for the current task, if the rest of it after the @ is
+     * a plain decimal number that a task could take, which is finite. Anything else, such as @-1, @1e999, @nan, @5d,
+     * @0x1p3, or a number with spaces around it, is read as an ordinary task name, the same as a field like @home that
+     * isn't a number at all.
+     *
+     * @return  true if it was a duration, false if it is an ordinary task name
+     */
+    private boolean readTime(){
+        if(!isDecimal(token, 1, length)){ //Double.parseDouble would take a lot more, such as 5d or Infinity
+            return false;
+        }
+        double time = Double.parseDouble(new String(token, 1, length-1, StandardCharsets.US_ASCII));
+        if(!Double.isFinite(time)){
+            return false;
+        }
+        dg.setDuration(task, time);
+        return true;
+    }
+
+    /**
+     * The isDecimal method returns whether some bytes are a plain decimal number: digits with an optional fraction,
+     * either side of the point may be empty but not both, then an optional exponent. The e of the exponent is lowercase,
+     * since the names are lowercased as they are read.
+     *
+     * @param bytes the bytes
+     * @param from  the first byte
+     * @param to    just past the last byte
+     * @return      true if the bytes are a decimal number, false otherwise
+     */
+    private static boolean isDecimal(byte[] bytes, int from, int to){
+        int i = from;
+        int digits = 0; //the digits before and after the point
+        while(i<to && bytes[i] >= '0' && bytes[i] <= '9'){
+            i++;
+            digits++;
+        }
+        if(i<to && bytes[i] == '.'){
+            i++;
+            while(i<to && bytes[i] >= '0' && bytes[i] <= '9'){
+                i++;
+                digits++;
+            }
+        }
+        if(digits == 0){
+            return false;
+        }
+        if(i<to && bytes[i] == 'e'){
+            i++;
+            if(i<to && (bytes[i] == '+' || bytes[i] == '-')){
+                i++;
+            }
+            int start = i;
+            while(i<to && bytes[i] >= '0' && bytes[i] <= '9'){
+                i++;
+            }
+            if(i == start){
+                return false;
+            }
+        }
+        return i == to;
+    }
+
+    /**
+     * The endLine method finishes the current line, so the next name read starts a new task.
+     */
+    private void endLine() throws IOException{
+        endField();
+        task = -1;
+        firstField = true;
+    }
+
+    /**
+     * The takeToken method looks up the current task name in the graph, adding it if it is new, and starts a new name.
+     * An ascii name was lowercased as it was read, so its bytes are used as they are. Names with characters outside of
+     * ascii are decoded as UTF-8, lowercased as a whole, and encoded again.
+     *
+     * @return  the id of the task
+     */
+    private int takeToken(){
+        int id;
+        if(ascii){
+            id = dg.addVertex(token, 0, length);
+        }
+        else{
+            String name = new String(token, 0, length, StandardCharsets.UTF_8).toLowerCase();
+            byte[] lower = name.getBytes(StandardCharsets.UTF_8);
+            id = dg.addVertex(lower, 0, lower.length);
+        }
+        length = 0;
+        ascii = true;
+        return id;
+    }
+}
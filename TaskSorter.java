@@ -1,8 +1,10 @@
-import java.util.Scanner;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.*;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 /**
  * The TastSorter class takes in a file that contains a list of tasks and their prerequisites, then prints a list of the order
  * in which the tasks should be completed.
@@ -12,47 +14,53 @@ import java.io.*;
  */
 public class TaskSorter
 {
+    private static final boolean REDUCE = Boolean.getBoolean("tasksorter.reduce"); //whether implied prerequisites are dropped
+    private static final int RESULT_VERSION = 2; //raised whenever a file would print differently, retiring old results
+
     /**
      * The main method parses a file of tasks and creates a directed graph out of them. If no file is inputted, it prints an error.
      * 
-     * @param a file that lists each task, followed by the tasks that need to be completed prior to the task.
+     * @param a file that lists each task, followed by the tasks that need to be completed prior to the task, or a snapshot of
+     *        one saved by GraphSnapshot, and optionally how to sort it: tarjan (the default), kosaraju, levels,
+     *        parallel, incremental (the same as tarjan here, since a graph that was just loaded has no kernels being
+     *        kept), or external, and how to print the order: text (the default), tsv, or json.
      */
     public static void main(String[] args){
+        DirectedGraph.SortMode mode = DirectedGraph.SortMode.TARJAN;
+        if(args.length>1){ //if a sort mode was put in, read before the file so nothing else is taken for a bad mode
+            try{
+                mode = DirectedGraph.SortMode.valueOf(args[1].toUpperCase());
+            }
+            catch(IllegalArgumentException e){ //if the sort mode isn't one of the modes
+                System.out.println("Unknown sort mode.");
+                return;
+            }
+        }
+        ResultWriter.Format format = ResultWriter.Format.TEXT;
+        if(args.length>2){ //if an output format was put in
+            format = formatOf(args[2]);
+            if(format == null){
+                System.out.println("Unknown output format.");
+                return;
+            }
+        }
         try{
             File file = new File(args[0]);
-            Scanner temp = new Scanner(file); //the temp scanner is used to determine the number of tasks in the file
-            Scanner fileReader = new Scanner(file);
-            
-            int size = 0;
-            while(temp.hasNextLine()){
-                String line = temp.nextLine();
-                size++;
+            ResultCache cache = ResultCache.configured();
+            if(cache == null){
+                sortFile(file, mode, ResultWriter.toStandardOut(format));
             }
-            //creates a directed graph the size of the number of tasks in the file
-            DirectedGraph dg = new DirectedGraph(size);
-            
-            //for each task in the file
-            while(fileReader.hasNextLine()){
-                String line = fileReader.nextLine();
-                String[]tasks = line.split("\t");
-                if(!dg.contains(tasks[0].toLowerCase())){ //if the task is not already in the graph
-                    dg.addVertex(tasks[0].toLowerCase());
-                }
-                
-                for(int i = 1; i<tasks.length; i++){ //for every prereq
-                    if(!dg.contains(tasks[i].toLowerCase())){//if the task is not already in the graph
-                        dg.addVertex(tasks[i].toLowerCase());
-                    }
-                    //add an edge from the prereq to the task
-                    dg.addEdge(tasks[i].toLowerCase(),tasks[0].toLowerCase());
-                }
+            else{
+                sortCached(cache, file, mode, format);
             }
-            //call the private userInteraction method
-            userInteraction(dg, file.getName());
         }
-        catch( FileNotFoundException e){ //if no file was put in, or a file not in the package.
+        catch(FileNotFoundException | NoSuchFileException e){ //if no file was put in, or a file not in the package.
             System.out.println("File not found.");
-        } 
+        }
+
+        catch(IOException e){ //a file that is there but can't be read, such as a truncated snapshot
+            System.out.println(e.getMessage());
+        }
         
         catch(Exception e){
             System.out.println("File not found.");
@@ -61,27 +69,138 @@ public class TaskSorter
         
     }
     
+    /**
+     * The sortFile method reads a task file or snapshot, sorts it, and writes out the order.
+     *
+     * @param file  the task file or snapshot
+     * @param mode  how to sort the directed graph
+     * @param out   where to write the order, and in what format
+     */
+    static void sortFile(File file, DirectedGraph.SortMode mode, ResultWriter out) throws IOException{
+        RunMetrics metrics = new RunMetrics(file.getName(), mode); //times each phase, for JFR and the stats report
+        metrics.begin(RunMetrics.Phase.LOAD);
+        metrics.read(file.length()); //every loader reads the whole file
+        if(GraphSnapshot.isSnapshot(file)){ //a snapshot is mapped in instead of parsed
+            GraphSnapshot snapshot = GraphSnapshot.open(file);
+            DirectedGraph dg = new DirectedGraph(snapshot.graph());
+            if(snapshot.hasKernels(mode)){ //the snapshot already holds the answer
+                DirectedGraph.Kernel[] k = snapshot.kernels(dg);
+                metrics.end(RunMetrics.Phase.LOAD);
+                metrics.begin(RunMetrics.Phase.WRITE);
+                out.write(file.getName(), snapshot.foundCycle(), k);
+                metrics.end(RunMetrics.Phase.WRITE);
+                metrics.finish(dg, k, snapshot.foundCycle(), -1); //nothing was searched, so the depth isn't known
+            }
+            else{
+                metrics.end(RunMetrics.Phase.LOAD);
+                userInteraction(dg, file.getName(), mode, out, metrics);
+            }
+            return;
+        }
+        if(mode == DirectedGraph.SortMode.EXTERNAL){ //the edges are spilled to disk within the memory budget
+            long budget = Long.getLong("tasksorter.memory", 256L<<20);
+            File dir = new File(System.getProperty("java.io.tmpdir"));
+            DirectedGraph dg = TaskFileLoader.loadExternal(file, budget, dir);
+            try{
+                metrics.end(RunMetrics.Phase.LOAD);
+                userInteraction(dg, file.getName(), mode, out, metrics);
+            }
+            finally{ //delete the edges now rather than when the JVM exits, which a batch run may not do for a long time
+                dg.externalEdges().close();
+            }
+            return;
+        }
+        //reads the file once, in shards on every core if it is large, creating a directed graph that grows with the
+        //number of tasks in the file, and keeps a prerequisite that is listed twice for the same task from being followed
+        //twice
+        DirectedGraph dg = TaskFileLoader.loadParallel(file, true);
+        metrics.end(RunMetrics.Phase.LOAD);
+        //call the private userInteraction method
+        userInteraction(dg, file.getName(), mode, out, metrics);
+    }
+
+    /**
+     * The sortCached method prints the order of a file through the result cache. If the same file has been sorted and
+     * printed the same way before, the stored result is streamed out without building the graph, and otherwise the file
+     * is sorted into a new entry that is then streamed out. The cache's hit rate is printed to standard error.
+     *
+     * @param cache     the result cache
+     * @param file      the task file or snapshot
+     * @param mode      how to sort the directed graph
+     * @param format    how to print the order
+     */
+    private static void sortCached(ResultCache cache, File file, DirectedGraph.SortMode mode, ResultWriter.Format format)
+            throws IOException{
+        //the file name is part of the key since it is printed in the result
+        String key = cache.key(file, "v" + RESULT_VERSION + " " + mode + " " + format + (REDUCE ? " reduced " : " ")
+            + file.getName());
+        FileChannel stored = cache.open(key);
+        boolean hit = stored != null;
+        if(!hit){
+            File entry = cache.newEntry();
+            boolean written = false;
+            try{
+                ResultWriter out = ResultWriter.to(new FileOutputStream(entry), format);
+                try{
+                    sortFile(file, mode, out);
+                }
+                finally{
+                    out.close();
+                }
+                stored = FileChannel.open(entry.toPath(), StandardOpenOption.READ); //stays readable once moved or evicted
+                written = true;
+            }
+            finally{
+                if(!written){ //don't leave a half written entry behind, whatever stopped the sort
+                    entry.delete();
+                }
+            }
+            cache.store(key, entry);
+        }
+        try(FileChannel in = stored){
+            ResultCache.copy(in, new FileOutputStream(FileDescriptor.out).getChannel());
+        }
+        cache.record(hit);
+        System.err.println(cache.stats());
+    }
+
+    /**
+     * The formatOf method returns the output format with the given name, or null if there isn't one.
+     */
+    static ResultWriter.Format formatOf(String name){
+        for(ResultWriter.Format format : ResultWriter.Format.values()){
+            if(format.name().equalsIgnoreCase(name)){
+                return format;
+            }
+        }
+        return null;
+    }
+
     /**
      * The userInteraction method prints the order in which to complete the tasks from the file provided from the main method.
      * 
      * @param dg    the directed graph created in the main method   
      * @param fn    the file name of the file passed to the program
+     * @param mode  how to sort the directed graph
+     * @param out   where to write the order, and in what format
+     * @param metrics   the metrics of the run
      */
-    private static void userInteraction(DirectedGraph dg, String fn){
-        //this section determines whether there are cycles in the graph
-        String mit;
-        if(!dg.isCycle()){
-            mit = "no";
-        }
-        else{
-            mit = "";
-        }
-        System.out.println("The file \"" + fn + "\" contains " + mit + " mutually dependent tasks. You must:");
-        //grab the list of kernels created by sorting the directed graph
-        DirectedGraph.Kernel[] k = dg.sort();
-        for(int i = 0; i<k.length; i++){ //prints the list of kernels in the correct order
-            System.out.println((i+1) + ": " + k[i].toString());
+    private static void userInteraction(DirectedGraph dg, String fn, DirectedGraph.SortMode mode, ResultWriter out,
+            RunMetrics metrics) throws IOException{
+        if(REDUCE && mode != DirectedGraph.SortMode.EXTERNAL){ //drop the prerequisites implied by others before sorting
+            metrics.begin(RunMetrics.Phase.REDUCE);
+            DirectedGraph reduced = dg.transitiveReduction();
+            metrics.end(RunMetrics.Phase.REDUCE);
+            System.err.println("Removed " + (dg.numEdges-reduced.numEdges) + " of " + dg.numEdges
+                + " prerequisites implied by others.");
+            dg = reduced;
         }
-        System.out.println("Thanks!");
+        //grab the list of kernels created by sorting the directed graph, which also finds whether there are cycles
+        DirectedGraph.Kernel[] k = dg.sort(mode, metrics);
+        //streams the kernels out in the correct order without building a string for each one
+        metrics.begin(RunMetrics.Phase.WRITE);
+        out.write(fn, dg.foundCycle(), k);
+        metrics.end(RunMetrics.Phase.WRITE);
+        metrics.finish(dg, k);
     }
 }
@@ -0,0 +1,378 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+/**
+ * The TransitiveReduction class finds the prerequisites that are already implied by others, such as a course that lists
+ * both Algorithms and Introduction to CS when Algorithms already needs Introduction to CS, and builds the smallest graph
+ * it can with the same tasks that leads from each task to exactly the same tasks. Only edges of the original graph are
+ * kept, so the result is a subgraph that sorts into the same kernels.
+ *
+ * Between kernels, the work is done on the graph of kernels, where every kernel is a single vertex. An edge from one
+ * kernel to another is implied if the second kernel can be reached from another kernel the first leads to, so each
+ * kernel's set of reachable kernels is kept as a bitset, built from its successors' sets, which are done first since
+ * edges only lead to lower kernel numbers. The bitsets for every kernel would take kernels squared bits, so the kernels
+ * are split into windows and each window only keeps the bits for the kernels inside it. The windows don't depend on each
+ * other, and are worked out at the same time on a fork/join pool. One edge is kept for each pair of kernels joined by an
+ * edge that isn't implied.
+ *
+ * Inside a kernel every task leads to every other, which a tree of edges out of one task and a tree of edges into it
+ * already do, so only those edges are kept. A task that depends on itself keeps that edge if it is a kernel of its own.
+ *
+ * Usage: java TransitiveReduction [task file]
+ */
+public class TransitiveReduction
+{
+    private static final long WINDOW_BYTES = 16L<<20; //about the most memory one window's bitsets take up
+    private static final int MAX_WORDS = 64; //the most 64-bit words of bits each kernel keeps in a window
+
+    private final CompactGraph reduced; //the reduced graph
+    private final boolean[] kept; //whether each edge of the original graph is in the reduced graph
+    private final int numKernels; //the number of kernels
+    private final int numKernelEdges; //the number of pairs of kernels joined by an edge
+    private final int impliedKernelEdges; //the number of those pairs that are implied by other pairs
+
+    /**
+     * Creates the transitive reduction of a graph on the common fork/join pool.
+     *
+     * @param g     the compact graph
+     */
+    public TransitiveReduction(CompactGraph g){
+        this(g, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates the transitive reduction of a graph, working out the windows of kernels on the given pool.
+     *
+     * @param g     the compact graph
+     * @param pool  the pool to work out the windows on
+     */
+    public TransitiveReduction(CompactGraph g, ForkJoinPool pool){
+        int n = g.numVertices;
+        int[] component = new int[n];
+        int count = new DepthFirstSearch(g).strongComponents(component);
+        numKernels = count;
+
+        //list the vertices kernel by kernel
+        int[] start = new int[count+1];
+        for(int v = 0; v<n; v++){
+            start[component[v]+1]++;
+        }
+        for(int c = 0; c<count; c++){
+            start[c+1] += start[c];
+        }
+        int[] members = new int[n];
+        int[] fill = new int[count];
+        for(int v = 0; v<n; v++){
+            members[start[component[v]] + fill[component[v]]++] = v;
+        }
+
+        //join each pair of kernels once, remembering the first edge that joins them
+        int[] offsets = new int[count+1];
+        int[] targets = new int[Math.max(16, count)];
+        int[] via = new int[targets.length]; //the original edge behind each edge between kernels
+        int m = 0;
+        int[] seen = fill; //the last kernel that was joined to each kernel, plus one
+        Arrays.fill(seen, 0);
+        for(int c = 0; c<count; c++){
+            for(int i = start[c]; i<start[c+1]; i++){
+                int v = members[i];
+                for(int e = g.begin(v); e<g.end(v); e++){
+                    int d = component[g.target(e)];
+                    if(d != c && seen[d] != c+1){
+                        seen[d] = c+1;
+                        if(m == targets.length){
+                            targets = Arrays.copyOf(targets, m*2);
+                            via = Arrays.copyOf(via, m*2);
+                        }
+                        targets[m] = d;
+                        via[m] = e;
+                        m++;
+                    }
+                }
+            }
+            offsets[c+1] = m;
+        }
+        CompactGraph kernels = new CompactGraph(new String[count], offsets, Arrays.copyOf(targets, m));
+        numKernelEdges = m;
+
+        boolean[] implied = implied(kernels, pool);
+        kept = new boolean[g.numEdges];
+        int impliedCount = 0;
+        for(int k = 0; k<m; k++){
+            if(implied[k]){
+                impliedCount++;
+            }
+            else{
+                kept[via[k]] = true;
+            }
+        }
+        impliedKernelEdges = impliedCount;
+        keepInsideKernels(g, component, start, members);
+
+        //the kept edges, in the order they were in
+        int[] rOffsets = new int[n+1];
+        int[] rTargets = new int[g.numEdges];
+        int r = 0;
+        for(int v = 0; v<n; v++){
+            for(int e = g.begin(v); e<g.end(v); e++){
+                if(kept[e]){
+                    rTargets[r++] = g.target(e);
+                }
+            }
+            rOffsets[v+1] = r;
+        }
+        rTargets = Arrays.copyOf(rTargets, r);
+        if(g.table() != null){
+            reduced = new CompactGraph(g.table(), rOffsets, rTargets);
+        }
+        else{
+            String[] names = new String[n];
+            for(int v = 0; v<n; v++){
+                names[v] = g.name(v);
+            }
+            reduced = new CompactGraph(names, rOffsets, rTargets);
+        }
+    }
+
+    /**
+     * The implied method finds which edges of the graph of kernels are implied by the others. The kernels are split into
+     * windows of consecutive numbers, each small enough for every kernel's bits for the window to fit in memory, and the
+     * windows are worked out on the pool. An edge is only looked at in the window that holds the kernel it leads to, so
+     * each window fills in its own part of the answer.
+     *
+     * @param kernels   the graph of kernels, with each pair joined once
+     * @param pool      the pool to work out the windows on
+     * @return          whether each edge of the graph of kernels is implied
+     */
+    private static boolean[] implied(CompactGraph kernels, ForkJoinPool pool){
+        int count = kernels.numVertices;
+        boolean[] implied = new boolean[kernels.numEdges];
+        if(kernels.numEdges == 0){
+            return implied;
+        }
+        //the lowest kernel each kernel can reach, so a window below it can skip it
+        int[] low = new int[count];
+        for(int c = 0; c<count; c++){
+            low[c] = c;
+            for(int e = kernels.begin(c); e<kernels.end(c); e++){
+                low[c] = Math.min(low[c], low[kernels.target(e)]);
+            }
+        }
+        int words = (int)Math.max(1, Math.min(MAX_WORDS, WINDOW_BYTES/(8L*count)));
+        int width = words*64;
+        ArrayList<ForkJoinTask<?>> windows = new ArrayList<>();
+        for(int lo = 0; lo<count; lo += width){
+            final int from = lo;
+            final int to = (int)Math.min(count, (long)lo+width);
+            windows.add(pool.submit(() -> window(kernels, low, from, to, words, implied)));
+        }
+        for(ForkJoinTask<?> w : windows){
+            w.join();
+        }
+        return implied;
+    }
+
+    /**
+     * The window method works out which edges leading into a window of kernels are implied. Going up from the bottom of
+     * the window, each kernel's bits are the kernels in the window that its successors reach, so any successor in the
+     * window whose bit is already set is implied by another successor. The successors themselves are then added.
+     *
+     * @param kernels   the graph of kernels
+     * @param low       the lowest kernel each kernel can reach
+     * @param lo        the first kernel in the window
+     * @param hi        just past the last kernel in the window
+     * @param words     the number of 64-bit words of bits each kernel keeps
+     * @param implied   whether each edge of the graph of kernels is implied, filled in for the edges into the window
+     */
+    private static void window(CompactGraph kernels, int[] low, int lo, int hi, int words, boolean[] implied){
+        int count = kernels.numVertices;
+        long[] bits = new long[(count-lo)*words]; //the kernels below lo reach nothing in the window
+        boolean[] any = new boolean[count-lo]; //whether each kernel reaches anything in the window
+        for(int c = lo; c<count; c++){
+            if(low[c] >= hi){ //everything it reaches is above the window
+                continue;
+            }
+            int base = (c-lo)*words;
+            for(int e = kernels.begin(c); e<kernels.end(c); e++){
+                int d = kernels.target(e);
+                if(d >= lo && any[d-lo]){
+                    int from = (d-lo)*words;
+                    for(int w = 0; w<words; w++){
+                        bits[base+w] |= bits[from+w];
+                    }
+                    any[c-lo] = true;
+                }
+            }
+            for(int e = kernels.begin(c); e<kernels.end(c); e++){
+                int d = kernels.target(e);
+                if(d >= lo && d < hi){
+                    int bit = d-lo;
+                    if((bits[base + (bit>>>6)] & (1L << bit)) != 0){ //another successor leads to it
+                        implied[e] = true;
+                    }
+                }
+            }
+            for(int e = kernels.begin(c); e<kernels.end(c); e++){
+                int d = kernels.target(e);
+                if(d >= lo && d < hi){
+                    int bit = d-lo;
+                    bits[base + (bit>>>6)] |= 1L << bit;
+                    any[c-lo] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * The keepInsideKernels method keeps, for each kernel of more than one vertex, the edges of a search tree out of its
+     * first vertex and of a search tree into it, following only edges inside the kernel. Every vertex of the kernel is
+     * reached by both, so the kept edges still lead from every vertex of the kernel to every other. A vertex's edge to
+     * itself is kept if it is a kernel of its own.
+     */
+    private void keepInsideKernels(CompactGraph g, int[] component, int[] start, int[] members){
+        int n = g.numVertices;
+        //the edges inside kernels, grouped by the vertex they lead to, for the tree into each kernel's first vertex
+        int[] inStart = new int[n+1];
+        int[] source = new int[g.numEdges];
+        for(int v = 0; v<n; v++){
+            boolean alone = start[component[v]+1]-start[component[v]] == 1;
+            boolean looped = false; //whether an edge to itself has been seen yet, so repeats of it aren't kept
+            for(int e = g.begin(v); e<g.end(v); e++){
+                int w = g.target(e);
+                source[e] = v;
+                if(w == v){
+                    kept[e] = alone && !looped;
+                    looped = true;
+                }
+                else if(component[w] == component[v]){
+                    inStart[w+1]++;
+                }
+            }
+        }
+        for(int v = 0; v<n; v++){
+            inStart[v+1] += inStart[v];
+        }
+        int[] inEdges = new int[inStart[n]];
+        int[] next = Arrays.copyOf(inStart, n);
+        for(int v = 0; v<n; v++){
+            for(int e = g.begin(v); e<g.end(v); e++){
+                int w = g.target(e);
+                if(w != v && component[w] == component[v]){
+                    inEdges[next[w]++] = e;
+                }
+            }
+        }
+
+        boolean[] out = new boolean[n]; //reached by the tree out of the first vertex
+        boolean[] in = new boolean[n]; //reached by the tree into the first vertex
+        int[] queue = next; //the vertices waiting to be searched, which fit in next since it is no longer needed
+        for(int c = 0; c<start.length-1; c++){
+            if(start[c+1]-start[c] == 1){
+                continue;
+            }
+            int root = members[start[c]];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = root;
+            out[root] = true;
+            while(head<tail){
+                int v = queue[head++];
+                for(int e = g.begin(v); e<g.end(v); e++){
+                    int w = g.target(e);
+                    if(component[w] == c && !out[w]){
+                        out[w] = true;
+                        kept[e] = true;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            head = 0;
+            tail = 0;
+            queue[tail++] = root;
+            in[root] = true;
+            while(head<tail){
+                int w = queue[head++];
+                for(int i = inStart[w]; i<inStart[w+1]; i++){
+                    int v = source[inEdges[i]];
+                    if(!in[v]){
+                        in[v] = true;
+                        kept[inEdges[i]] = true;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The main method loads a task file and prints each prerequisite that is implied by the others, then how many of the
+     * prerequisites were removed.
+     *
+     * @param args  the task file
+     */
+    public static void main(String[] args){
+        try{
+            DirectedGraph dg = TaskFileLoader.load(new File(args[0]), true);
+            CompactGraph g = dg.compact();
+            TransitiveReduction r = new TransitiveReduction(g);
+            for(int v = 0; v<g.numVertices; v++){
+                for(int e = g.begin(v); e<g.end(v); e++){
+                    if(!r.isKept(e)){
+                        System.out.println("\"" + g.name(g.target(e)) + "\" does not need to list \"" + g.name(v)
+                            + "\", which it already depends on through another task.");
+                    }
+                }
+            }
+            System.out.println("Removed " + r.removed() + " of " + g.numEdges + " prerequisites.");
+        }
+        catch(Exception e){
+            System.out.println("File not found.");
+        }
+    }
+
+    /**
+     * The graph method returns the reduced graph, which has the same vertices as the original graph and only the edges
+     * that were kept, in the order they were in.
+     */
+    public CompactGraph graph(){
+        return reduced;
+    }
+
+    /**
+     * The isKept method returns whether an edge of the original graph, given by its position, is in the reduced graph.
+     */
+    public boolean isKept(int e){
+        return kept[e];
+    }
+
+    /**
+     * The removed method returns the number of edges of the original graph that aren't in the reduced graph.
+     */
+    public int removed(){
+        return kept.length - reduced.numEdges;
+    }
+
+    /**
+     * The numKernels method returns the number of kernels.
+     */
+    public int numKernels(){
+        return numKernels;
+    }
+
+    /**
+     * The numKernelEdges method returns the number of pairs of kernels joined by an edge.
+     */
+    public int numKernelEdges(){
+        return numKernelEdges;
+    }
+
+    /**
+     * The impliedKernelEdges method returns the number of pairs of kernels joined by an edge that are implied by the
+     * other pairs.
+     */
+    public int impliedKernelEdges(){
+        return impliedKernelEdges;
+    }
+}
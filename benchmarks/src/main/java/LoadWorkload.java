@@ -0,0 +1,31 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+/**
+ * The LoadWorkload class writes a task file of one of the synthetic shapes for LoadBenchmark, and the ways of reading it
+ * that the benchmark times.
+ */
+public class LoadWorkload
+{
+    /**
+     * The prepare method writes the task file and returns the ways of reading it, along with a close operation that
+     * deletes it.
+     *
+     * @param shape     the shape of graph, as taken by SyntheticGraphs.shape
+     * @param size      the number of vertices
+     * @return          the operations, by name
+     * @throws IOException  if the file can't be written
+     */
+    public static Map<String,Callable<Object>> prepare(String shape, int size) throws IOException{
+        File file = File.createTempFile("benchmark", ".txt");
+        file.deleteOnExit();
+        SyntheticGraphs.writeTaskFile(SyntheticGraphs.shape(shape, size), file);
+        Map<String,Callable<Object>> ops = new HashMap<>();
+        ops.put("onePass", () -> TaskFileLoader.load(file, true));
+        ops.put("shards", () -> TaskFileLoader.loadParallel(file, true)); //what TaskSorter reads a file with
+        ops.put("close", () -> file.delete());
+        return ops;
+    }
+}
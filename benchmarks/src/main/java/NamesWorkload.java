@@ -0,0 +1,69 @@
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+/**
+ * The NamesWorkload class makes task names of twenty or so bytes, one after another as they would sit in a loader's read
+ * buffer, for NamesBenchmark to compare holding them as Strings in a hash map, the way a graph used to number its tasks,
+ * against holding them in a NameTable.
+ */
+public class NamesWorkload
+{
+    /**
+     * The prepare method makes the names and returns the operations on them: building a hash map of Strings or a
+     * NameTable of them, whose bytes allocated per operation show what each holds on to, and looking every name up in the
+     * table by making a String first or straight from the bytes.
+     *
+     * @param variant   unused, as there is only one set of names
+     * @param size      the number of names
+     * @return          the operations, by name
+     */
+    public static Map<String,Callable<Object>> prepare(String variant, int size){
+        int n = size;
+        byte[] bytes = new byte[n*24];
+        int[] start = new int[n+1];
+        Random random = new Random(1);
+        int used = 0;
+        for(int v = 0; v<n; v++){
+            byte[] name = ("task-" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36)).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(name, 0, bytes, used, name.length);
+            used += name.length;
+            start[v+1] = used;
+        }
+        NameTable table = new NameTable(n);
+        for(int v = 0; v<n; v++){
+            table.add(bytes, start[v], start[v+1]-start[v]);
+        }
+        Map<String,Callable<Object>> ops = new HashMap<>();
+        ops.put("buildMap", () -> {
+            HashMap<String,Integer> map = new HashMap<>(n*4/3);
+            for(int v = 0; v<n; v++){
+                map.put(new String(bytes, start[v], start[v+1]-start[v], StandardCharsets.US_ASCII), v);
+            }
+            return map;
+        });
+        ops.put("buildTable", () -> {
+            NameTable t = new NameTable(n);
+            for(int v = 0; v<n; v++){
+                t.add(bytes, start[v], start[v+1]-start[v]);
+            }
+            return t;
+        });
+        ops.put("findByString", () -> {
+            long total = 0;
+            for(int v = 0; v<n; v++){
+                total += table.find(new String(bytes, start[v], start[v+1]-start[v], StandardCharsets.US_ASCII));
+            }
+            return total;
+        });
+        ops.put("findByBytes", () -> {
+            long total = 0;
+            for(int v = 0; v<n; v++){
+                total += table.find(bytes, start[v], start[v+1]-start[v]);
+            }
+            return total;
+        });
+        return ops;
+    }
+}
@@ -0,0 +1,40 @@
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+/**
+ * The OutputWorkload class sorts a single cycle of named tasks into its one giant kernel, for OutputBenchmark to time
+ * writing it out the way TaskSorter used to, through Kernel.toString and an autoflushing PrintStream, against streaming it
+ * through a ResultWriter. Both write to a stream that throws the output away, so only the cost of producing it is timed.
+ */
+public class OutputWorkload
+{
+    /**
+     * The prepare method sorts the cycle and returns both ways of writing out its kernels.
+     *
+     * @param variant   unused, as there is only one graph
+     * @param size      the number of vertices
+     * @return          the operations, by name
+     */
+    public static Map<String,Callable<Object>> prepare(String variant, int size){
+        DirectedGraph dg = new DirectedGraph(SyntheticGraphs.named(SyntheticGraphs.chain(size, true), "task "));
+        DirectedGraph.Kernel[] k = dg.sort();
+        PrintStream print = new PrintStream(OutputStream.nullOutputStream(), true);
+        ResultWriter writer = new ResultWriter(new BufferedWriter(Writer.nullWriter(), 1<<16), ResultWriter.Format.TEXT);
+        Map<String,Callable<Object>> ops = new HashMap<>();
+        ops.put("println", () -> {
+            for(int i = 0; i<k.length; i++){
+                print.println((i+1) + ": " + k[i].toString());
+            }
+            return print;
+        });
+        ops.put("resultWriter", () -> {
+            writer.write("cycle", true, k);
+            return writer;
+        });
+        return ops;
+    }
+}
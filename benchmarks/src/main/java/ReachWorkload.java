@@ -0,0 +1,84 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+/**
+ * The ReachWorkload class builds a random acyclic graph whose edges lead to nearby vertices, and pairs of vertices close
+ * enough together that many of them are connected, for ReachBenchmark to time the reachability index against searching
+ * the graph.
+ */
+public class ReachWorkload
+{
+    /**
+     * The prepare method builds the graph, its index and the queries, and returns the operations on them: building the
+     * index, a hundred thousand indexed queries, a thousand queries answered by searching the graph, and finding what
+     * depends on a hundred vertices.
+     *
+     * @param variant   unused, as there is only one graph
+     * @param size      the number of vertices
+     * @return          the operations, by name
+     */
+    public static Map<String,Callable<Object>> prepare(String variant, int size){
+        int n = size;
+        Random random = new Random(1);
+        int[] offsets = new int[n+1];
+        int[] targets = new int[n*3];
+        for(int v = 0; v<n; v++){ //three edges to vertices at most a hundred later
+            int m = offsets[v];
+            for(int i = 0; i<3 && v+1<n; i++){
+                targets[m++] = Math.min(n-1, v+1+random.nextInt(100));
+            }
+            offsets[v+1] = m;
+        }
+        CompactGraph g = new CompactGraph(new String[n], offsets, Arrays.copyOf(targets, offsets[n]));
+        int[] queries = new int[200_000];
+        for(int q = 0; q<queries.length; q += 2){
+            queries[q] = random.nextInt(n);
+            queries[q+1] = Math.min(n-1, queries[q] + random.nextInt(2000));
+        }
+        Reachability index = new Reachability(g);
+        boolean[] marked = new boolean[n];
+        int[] stack = new int[n];
+        Map<String,Callable<Object>> ops = new HashMap<>();
+        ops.put("build", () -> new Reachability(g));
+        ops.put("indexed", () -> {
+            int found = 0;
+            for(int q = 0; q<queries.length; q += 2){
+                found += index.reaches(queries[q], queries[q+1]) ? 1 : 0;
+            }
+            return found;
+        });
+        ops.put("searched", () -> {
+            int found = 0;
+            for(int q = 0; q<2000; q += 2){ //search from the first vertex, unmarking what was reached afterwards
+                int top = 0;
+                int reached = 1;
+                stack[0] = queries[q];
+                marked[queries[q]] = true;
+                while(top<reached && !marked[queries[q+1]]){
+                    int v = stack[top++];
+                    for(int e = g.begin(v); e<g.end(v); e++){
+                        if(!marked[g.target(e)]){
+                            marked[g.target(e)] = true;
+                            stack[reached++] = g.target(e);
+                        }
+                    }
+                }
+                found += marked[queries[q+1]] ? 1 : 0;
+                for(int i = 0; i<reached; i++){
+                    marked[stack[i]] = false;
+                }
+            }
+            return found;
+        });
+        ops.put("descendants", () -> {
+            long total = 0;
+            for(int q = 0; q<200; q += 2){
+                total += index.descendants(queries[q]).length;
+            }
+            return total;
+        });
+        return ops;
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+/**
+ * The ReduceWorkload class builds a graph where each task has two direct prerequisites among the fifty tasks after it and
+ * also lists their direct prerequisites, which it already depends on through them, the way course lists name both a
+ * course and the course it builds on. The cyclic variant also has every hundredth task depend on the one before it,
+ * which closes small cycles. ReduceBenchmark times the transitive reduction and the sorts before and after it.
+ */
+public class ReduceWorkload
+{
+    /**
+     * The prepare method builds the graph and its reduction, and returns the reduction and the sorts of each graph.
+     *
+     * @param variant   acyclic or cyclic
+     * @param size      the number of vertices
+     * @return          the operations, by name
+     */
+    public static Map<String,Callable<Object>> prepare(String variant, int size){
+        int n = size;
+        Random random = new Random(1);
+        int[][] direct = new int[n][];
+        int[] offsets = new int[n+1];
+        int[] targets = new int[n*8];
+        int m = 0;
+        for(int v = n-1; v>=0; v--){ //the tasks after v are done first, so their prerequisites are known
+            direct[v] = new int[Math.min(2, n-1-v)];
+            for(int i = 0; i<direct[v].length; i++){
+                direct[v][i] = v+1+random.nextInt(Math.min(50, n-1-v));
+            }
+        }
+        for(int v = 0; v<n; v++){
+            for(int w : direct[v]){
+                targets[m++] = w;
+                for(int x : direct[w]){ //implied through w
+                    targets[m++] = x;
+                }
+            }
+            if(variant.equals("cyclic") && v%100 == 1){
+                targets[m++] = v-1;
+            }
+            offsets[v+1] = m;
+        }
+        CompactGraph g = new CompactGraph(new String[n], offsets, Arrays.copyOf(targets, m));
+        DirectedGraph before = new DirectedGraph(SyntheticGraphs.named(g, "task"));
+        DirectedGraph after = before.transitiveReduction();
+        after.compact();
+        Map<String,Callable<Object>> ops = new HashMap<>();
+        ops.put("reduce", () -> before.transitiveReduction());
+        ops.put("tarjanBefore", () -> before.sort(DirectedGraph.SortMode.TARJAN));
+        ops.put("tarjanAfter", () -> after.sort(DirectedGraph.SortMode.TARJAN));
+        ops.put("kosarajuBefore", () -> before.sort(DirectedGraph.SortMode.KOSARAJU));
+        ops.put("kosarajuAfter", () -> after.sort(DirectedGraph.SortMode.KOSARAJU));
+        return ops;
+    }
+}
@@ -0,0 +1,38 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+/**
+ * The ScheduleWorkload class builds the graphs ScheduleBenchmark works out schedules for: a chain, whose critical path
+ * runs through every task, with every task taking the same time, or a random graph with cycles and five edges per task,
+ * with random task durations.
+ */
+public class ScheduleWorkload
+{
+    /**
+     * The prepare method builds the graph and the operation that works out its schedule.
+     *
+     * @param shape     chain or random
+     * @param size      the number of vertices
+     * @return          the operations, by name
+     */
+    public static Map<String,Callable<Object>> prepare(String shape, int size){
+        CompactGraph g;
+        double[] time = new double[size];
+        if(shape.equals("chain")){
+            g = SyntheticGraphs.chain(size, false);
+            Arrays.fill(time, 1);
+        }
+        else{
+            g = SyntheticGraphs.randomGraph(size, 5, 1);
+            Random random = new Random(1);
+            for(int v = 0; v<size; v++){
+                time[v] = 1 + random.nextInt(10);
+            }
+        }
+        Map<String,Callable<Object>> ops = new HashMap<>();
+        ops.put("schedule", () -> new Schedule(g, time).criticalPath());
+        return ops;
+    }
+}
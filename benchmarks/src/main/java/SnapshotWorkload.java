@@ -0,0 +1,42 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+/**
+ * The SnapshotWorkload class writes a random graph with two edges per task as a task file and as a snapshot holding its
+ * kernels, for SnapshotBenchmark to compare parsing the one against mapping in the other.
+ */
+public class SnapshotWorkload
+{
+    /**
+     * The prepare method writes both files and returns the ways of reading them, along with a close operation that
+     * deletes them.
+     *
+     * @param variant   unused, as there is only one graph
+     * @param size      the number of vertices
+     * @return          the operations, by name
+     * @throws IOException  if the files can't be written
+     */
+    public static Map<String,Callable<Object>> prepare(String variant, int size) throws IOException{
+        File file = File.createTempFile("benchmark", ".txt");
+        File snap = File.createTempFile("benchmark", ".snap");
+        file.deleteOnExit();
+        snap.deleteOnExit();
+        SyntheticGraphs.writeTaskFile(SyntheticGraphs.randomGraph(size, 2, 1), file);
+        GraphSnapshot.write(TaskFileLoader.load(file, true), DirectedGraph.SortMode.TARJAN, snap);
+        Map<String,Callable<Object>> ops = new HashMap<>();
+        ops.put("parse", () -> TaskFileLoader.load(file, true));
+        ops.put("open", () -> GraphSnapshot.open(snap));
+        ops.put("openAndTarjan", () -> {
+            CompactGraph mapped = GraphSnapshot.open(snap).graph();
+            return new DepthFirstSearch(mapped).strongComponents(new int[mapped.numVertices]);
+        });
+        ops.put("openWithKernels", () -> {
+            GraphSnapshot snapshot = GraphSnapshot.open(snap);
+            return snapshot.kernels(new DirectedGraph(snapshot.graph()));
+        });
+        ops.put("close", () -> file.delete() & snap.delete());
+        return ops;
+    }
+}
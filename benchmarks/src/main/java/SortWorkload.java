@@ -0,0 +1,27 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+/**
+ * The SortWorkload class builds a directed graph of one of the synthetic shapes for SortBenchmark, and the operations on
+ * it that the benchmark times.
+ */
+public class SortWorkload
+{
+    /**
+     * The prepare method builds the graph and its operations.
+     *
+     * @param shape     the shape of graph, as taken by SyntheticGraphs.shape
+     * @param size      the number of vertices
+     * @return          the operations, by name
+     */
+    public static Map<String,Callable<Object>> prepare(String shape, int size){
+        DirectedGraph dg = new DirectedGraph(SyntheticGraphs.shape(shape, size));
+        Map<String,Callable<Object>> ops = new HashMap<>();
+        ops.put("isCycle", () -> dg.isCycle());
+        ops.put("sortTopologically", () -> dg.sortTopologically());
+        ops.put("reverseGraph", () -> dg.reverseGraph());
+        ops.put("tarjan", () -> dg.sort(DirectedGraph.SortMode.TARJAN));
+        ops.put("kosaraju", () -> dg.sort(DirectedGraph.SortMode.KOSARAJU));
+        return ops;
+    }
+}
@@ -0,0 +1,27 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+/**
+ * The BenchmarkMain class runs the benchmarks through JMH's own command line, adding the gc profiler so every result comes
+ * with its allocation rate and bytes allocated per operation, unless profilers were asked for already.
+ *
+ * Usage: java -jar benchmarks.jar [JMH options] [benchmark name pattern]
+ */
+public class BenchmarkMain
+{
+    /**
+     * The main method passes the arguments on to JMH, with the gc profiler added.
+     *
+     * @param args  the JMH command line
+     */
+    public static void main(String[] args) throws Exception{
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if(!options.contains("-prof") && !options.contains("-lprof") && !options.contains("-l") && !options.contains("-h")){
+            options.add(0, "-prof");
+            options.add(1, "gc");
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,61 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * The LoadBenchmark class times reading a task file of each shape of synthetic graph, from a thousand vertices up to ten
+ * million, in one pass and in shards the way TaskSorter reads it. The shards are read on the common pool, so the number
+ * of threads can be changed with -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=N.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class LoadBenchmark
+{
+    @Param({"dag", "chain", "fanin", "smallsccs", "giantscc"})
+    public String shape;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Workload workload;
+    private Callable<Object> onePass;
+    private Callable<Object> shards;
+
+    @Setup
+    public void setup() throws Exception{
+        workload = Workload.prepare("LoadWorkload", shape, size);
+        onePass = workload.operation("onePass");
+        shards = workload.operation("shards");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception{
+        workload.close();
+    }
+
+    @Benchmark
+    public Object loadOnePass() throws Exception{
+        return onePass.call();
+    }
+
+    @Benchmark
+    public Object loadInShards() throws Exception{
+        return shards.call();
+    }
+}
@@ -0,0 +1,65 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * The NamesBenchmark class compares holding task names as Strings in a hash map against a NameTable, where the gc
+ * profiler's bytes allocated per operation of each build show what it holds on to, and times looking the names up from
+ * the bytes a loader reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class NamesBenchmark
+{
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Callable<Object> buildMap;
+    private Callable<Object> buildTable;
+    private Callable<Object> findByString;
+    private Callable<Object> findByBytes;
+
+    @Setup
+    public void setup() throws Exception{
+        Workload w = Workload.prepare("NamesWorkload", "", size);
+        buildMap = w.operation("buildMap");
+        buildTable = w.operation("buildTable");
+        findByString = w.operation("findByString");
+        findByBytes = w.operation("findByBytes");
+    }
+
+    @Benchmark
+    public Object buildHashMap() throws Exception{
+        return buildMap.call();
+    }
+
+    @Benchmark
+    public Object buildNameTable() throws Exception{
+        return buildTable.call();
+    }
+
+    @Benchmark
+    public Object findByMakingString() throws Exception{
+        return findByString.call();
+    }
+
+    @Benchmark
+    public Object findFromBytes() throws Exception{
+        return findByBytes.call();
+    }
+}
@@ -0,0 +1,50 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * The OutputBenchmark class times writing out the one giant kernel of a cycle of named tasks through Kernel.toString and
+ * println against streaming it through a ResultWriter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class OutputBenchmark
+{
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Callable<Object> println;
+    private Callable<Object> resultWriter;
+
+    @Setup
+    public void setup() throws Exception{
+        Workload w = Workload.prepare("OutputWorkload", "", size);
+        println = w.operation("println");
+        resultWriter = w.operation("resultWriter");
+    }
+
+    @Benchmark
+    public Object printlnToString() throws Exception{
+        return println.call();
+    }
+
+    @Benchmark
+    public Object resultWriter() throws Exception{
+        return resultWriter.call();
+    }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * The ReachBenchmark class times building the reachability index of a random acyclic graph, answering queries with it
+ * and by searching the graph, and finding what depends on a task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class ReachBenchmark
+{
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Callable<Object> build;
+    private Callable<Object> indexed;
+    private Callable<Object> searched;
+    private Callable<Object> descendants;
+
+    @Setup
+    public void setup() throws Exception{
+        Workload w = Workload.prepare("ReachWorkload", "", size);
+        build = w.operation("build");
+        indexed = w.operation("indexed");
+        searched = w.operation("searched");
+        descendants = w.operation("descendants");
+    }
+
+    @Benchmark
+    public Object buildIndex() throws Exception{
+        return build.call();
+    }
+
+    @Benchmark
+    public Object indexedQueries() throws Exception{
+        return indexed.call();
+    }
+
+    @Benchmark
+    public Object searchedQueries() throws Exception{
+        return searched.call();
+    }
+
+    @Benchmark
+    public Object descendants() throws Exception{
+        return descendants.call();
+    }
+}
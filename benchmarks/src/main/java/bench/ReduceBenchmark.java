@@ -0,0 +1,74 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * The ReduceBenchmark class times the transitive reduction of a graph whose tasks list prerequisites they already depend
+ * on through others, and both kernel sorts on the graph before and after it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class ReduceBenchmark
+{
+    @Param({"acyclic", "cyclic"})
+    public String cycles;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Callable<Object> reduce;
+    private Callable<Object> tarjanBefore;
+    private Callable<Object> tarjanAfter;
+    private Callable<Object> kosarajuBefore;
+    private Callable<Object> kosarajuAfter;
+
+    @Setup
+    public void setup() throws Exception{
+        Workload w = Workload.prepare("ReduceWorkload", cycles, size);
+        reduce = w.operation("reduce");
+        tarjanBefore = w.operation("tarjanBefore");
+        tarjanAfter = w.operation("tarjanAfter");
+        kosarajuBefore = w.operation("kosarajuBefore");
+        kosarajuAfter = w.operation("kosarajuAfter");
+    }
+
+    @Benchmark
+    public Object transitiveReduction() throws Exception{
+        return reduce.call();
+    }
+
+    @Benchmark
+    public Object tarjanBefore() throws Exception{
+        return tarjanBefore.call();
+    }
+
+    @Benchmark
+    public Object tarjanAfter() throws Exception{
+        return tarjanAfter.call();
+    }
+
+    @Benchmark
+    public Object kosarajuBefore() throws Exception{
+        return kosarajuBefore.call();
+    }
+
+    @Benchmark
+    public Object kosarajuAfter() throws Exception{
+        return kosarajuAfter.call();
+    }
+}
@@ -0,0 +1,46 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * The ScheduleBenchmark class times working out the schedule and critical path of a chain, on a small call stack, and of a
+ * random graph with cycles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx4g", "-Xss256k"})
+public class ScheduleBenchmark
+{
+    @Param({"chain", "random"})
+    public String shape;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Callable<Object> schedule;
+
+    @Setup
+    public void setup() throws Exception{
+        Workload w = Workload.prepare("ScheduleWorkload", shape, size);
+        schedule = w.operation("schedule");
+    }
+
+    @Benchmark
+    public Object schedule() throws Exception{
+        return schedule.call();
+    }
+}
@@ -0,0 +1,71 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * The SnapshotBenchmark class times parsing a task file against opening a snapshot of the same random graph, opening it
+ * and running Tarjan's algorithm on the mapped edges, and opening it as a directed graph with its saved kernels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class SnapshotBenchmark
+{
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Workload workload;
+    private Callable<Object> parse;
+    private Callable<Object> open;
+    private Callable<Object> openAndTarjan;
+    private Callable<Object> openWithKernels;
+
+    @Setup
+    public void setup() throws Exception{
+        workload = Workload.prepare("SnapshotWorkload", "", size);
+        parse = workload.operation("parse");
+        open = workload.operation("open");
+        openAndTarjan = workload.operation("openAndTarjan");
+        openWithKernels = workload.operation("openWithKernels");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception{
+        workload.close();
+    }
+
+    @Benchmark
+    public Object parseTaskFile() throws Exception{
+        return parse.call();
+    }
+
+    @Benchmark
+    public Object openSnapshot() throws Exception{
+        return open.call();
+    }
+
+    @Benchmark
+    public Object openSnapshotAndRunTarjan() throws Exception{
+        return openAndTarjan.call();
+    }
+
+    @Benchmark
+    public Object openSnapshotWithKernels() throws Exception{
+        return openWithKernels.call();
+    }
+}
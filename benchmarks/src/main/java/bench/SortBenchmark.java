@@ -0,0 +1,75 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * The SortBenchmark class times cycle detection, topological sorting, reversing and both kinds of kernel sort of
+ * DirectedGraph on each shape of synthetic graph, from a thousand vertices up to ten million. The forks run with a small
+ * call stack, which the traversals must fit in however long the graph is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx4g", "-Xss256k"})
+public class SortBenchmark
+{
+    @Param({"dag", "chain", "fanin", "smallsccs", "giantscc"})
+    public String shape;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Callable<Object> isCycle;
+    private Callable<Object> sortTopologically;
+    private Callable<Object> reverseGraph;
+    private Callable<Object> tarjan;
+    private Callable<Object> kosaraju;
+
+    @Setup
+    public void setup() throws Exception{
+        Workload w = Workload.prepare("SortWorkload", shape, size);
+        isCycle = w.operation("isCycle");
+        sortTopologically = w.operation("sortTopologically");
+        reverseGraph = w.operation("reverseGraph");
+        tarjan = w.operation("tarjan");
+        kosaraju = w.operation("kosaraju");
+    }
+
+    @Benchmark
+    public Object isCycle() throws Exception{
+        return isCycle.call();
+    }
+
+    @Benchmark
+    public Object sortTopologically() throws Exception{
+        return sortTopologically.call();
+    }
+
+    @Benchmark
+    public Object reverseGraph() throws Exception{
+        return reverseGraph.call();
+    }
+
+    @Benchmark
+    public Object cycleSortTarjan() throws Exception{
+        return tarjan.call();
+    }
+
+    @Benchmark
+    public Object cycleSortKosaraju() throws Exception{
+        return kosaraju.call();
+    }
+}
@@ -0,0 +1,59 @@
+package bench;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+/**
+ * The Workload class finds the operations a benchmark times. The graph classes sit in the default package, which JMH
+ * won't generate benchmarks in and which a named package can't import, so each benchmark's operations are built by a
+ * workload class in the default package beside them. The workload is looked up by name once, before anything is timed,
+ * and every operation it returns is called directly from then on.
+ */
+public final class Workload
+{
+    private final Map<String,Callable<Object>> operations;
+
+    private Workload(Map<String,Callable<Object>> operations){
+        this.operations = operations;
+    }
+
+    /**
+     * The prepare method builds the graphs and files a workload needs through its static prepare method, which takes the
+     * variant of the workload, such as the shape of the graph, and the number of vertices.
+     *
+     * @param name      the name of the workload class
+     * @param variant   which variant of the workload to build
+     * @param size      the number of vertices
+     * @return          the prepared workload
+     * @throws Exception    if the workload can't be built
+     */
+    @SuppressWarnings("unchecked")
+    public static Workload prepare(String name, String variant, int size) throws Exception{
+        Method prepare = Class.forName(name).getMethod("prepare", String.class, int.class);
+        return new Workload((Map<String,Callable<Object>>)prepare.invoke(null, variant, size));
+    }
+
+    /**
+     * The operation method returns one of the operations of the workload.
+     *
+     * @param op    the name of the operation
+     * @return      the operation, which returns its result so the work can't be skipped
+     */
+    public Callable<Object> operation(String op){
+        Callable<Object> c = operations.get(op);
+        if(c == null){
+            throw new IllegalArgumentException("The workload has no operation called " + op);
+        }
+        return c;
+    }
+
+    /**
+     * The close method runs the workload's close operation, if it has one, to delete the files it wrote.
+     */
+    public void close() throws Exception{
+        Callable<Object> c = operations.get("close");
+        if(c != null){
+            c.call();
+        }
+    }
+}
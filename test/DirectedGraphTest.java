@@ -0,0 +1,155 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+/**
+ * The DirectedGraphTest class checks that removing a vertex moves the last vertex into its id with its name, edges, and
+ * duration, and that compact graphs made from the graph before it changed keep their own names.
+ */
+public class DirectedGraphTest
+{
+    /**
+     * The lastVertexTakesTheId method removes a vertex from the middle and checks that the last vertex now has its id,
+     * that every edge of the moved vertex points at the new id, and that a Vertex held for the removed task is dropped.
+     */
+    @Test
+    public void lastVertexTakesTheId(){
+        DirectedGraph dg = new DirectedGraph();
+        for(String task : new String[]{"a", "b", "c", "d"}){
+            dg.addVertex(task);
+        }
+        dg.addEdge("a", "b");
+        dg.addEdge("b", "d");
+        dg.addEdge("d", "c");
+        dg.addEdge("d", "d");
+        dg.setDuration("d", 3);
+        DirectedGraph.Vertex b = dg.vertex(1);
+        DirectedGraph.Vertex d = dg.vertex(3);
+
+        assertTrue(dg.removeVertex("b"));
+        assertFalse(dg.removeVertex("b"));
+        assertEquals(3, dg.numVertices);
+        assertEquals(-1, b.index);
+        assertEquals(1, d.index);
+        assertEquals("d", dg.vertex(1).task);
+        assertEquals(1, dg.idOf("d"));
+        assertEquals(-1, dg.idOf("b"));
+        assertEquals(3, dg.getDuration(1));
+        assertEquals(2, dg.countEdges());
+        assertTrue(dg.hasEdge("d", "c"));
+        assertTrue(dg.hasEdge("d", "d"));
+        assertFalse(dg.hasEdge("a", "d"));
+
+        DirectedGraph.Vertex c = dg.vertex(2);
+        assertTrue(dg.removeVertex("c")); //the last vertex, so nothing moves
+        assertEquals(-1, c.index);
+        assertEquals(1, d.index);
+        assertEquals(2, dg.numVertices);
+        assertEquals(1, dg.countEdges());
+        assertTrue(dg.hasEdge("d", "d"));
+    }
+
+    /**
+     * The removalsMatchAModel method removes random vertices, with and without rejecting duplicate edges, and after
+     * compacting the graph some of the time, and checks the names and edges left against a list of names and edges.
+     */
+    @Test
+    public void removalsMatchAModel(){
+        Random random = new Random(22);
+        for(int t = 0; t<20; t++){
+            boolean unique = t%2 == 0;
+            DirectedGraph dg = new DirectedGraph();
+            if(unique){
+                dg.rejectDuplicateEdges();
+            }
+            List<String> names = new ArrayList<>();
+            int n = 5+random.nextInt(40);
+            for(int v = 0; v<n; v++){
+                names.add("t" + v);
+                dg.addVertex("t" + v);
+            }
+            List<String> edges = new ArrayList<>(); //each edge as start > end
+            for(int e = 0; e<3*n; e++){
+                String start = names.get(random.nextInt(n));
+                String end = names.get(random.nextInt(n));
+                if(!unique || !edges.contains(start + ">" + end)){
+                    edges.add(start + ">" + end);
+                }
+                dg.addEdge(start, end);
+            }
+            while(names.size() > 1){
+                if(random.nextInt(4) == 0){
+                    dg.sort(); //compacts the graph, so the next removal thaws it
+                }
+                int v = random.nextInt(names.size());
+                String task = names.get(v);
+                assertTrue(dg.removeVertex(task));
+                names.set(v, names.get(names.size()-1)); //the model moves the last name in the same way
+                names.remove(names.size()-1);
+                edges.removeIf(edge -> edge.startsWith(task + ">") || edge.endsWith(">" + task));
+                assertSameGraph(names, edges, dg, unique);
+            }
+        }
+    }
+
+    /**
+     * The compactGraphsKeepTheirNames method checks that a compact graph taken from a graph doesn't see tasks added to
+     * the graph afterwards, or the ids moved by removing one, and neither does a graph made from it.
+     */
+    @Test
+    public void compactGraphsKeepTheirNames(){
+        DirectedGraph dg = new DirectedGraph();
+        dg.addVertex("a");
+        dg.addVertex("b");
+        dg.addEdge("a", "b");
+        CompactGraph g = dg.compact();
+        dg.addVertex("c");
+        dg.addEdge("b", "c");
+        assertTrue(dg.removeVertex("a"));
+
+        assertEquals("a", g.name(0));
+        assertEquals("b", g.name(1));
+        DirectedGraph copy = new DirectedGraph(g);
+        assertEquals(2, copy.numVertices);
+        assertEquals(-1, copy.idOf("c"));
+        assertEquals(0, copy.idOf("a"));
+        assertEquals("c", dg.vertex(0).task);
+        assertEquals(0, dg.idOf("c"));
+    }
+
+    /**
+     * The assertSameGraph method checks that a graph holds the given names at their ids and exactly the given edges.
+     */
+    private static void assertSameGraph(List<String> names, List<String> edges, DirectedGraph dg, boolean unique){
+        assertEquals(names.size(), dg.numVertices);
+        for(int v = 0; v<names.size(); v++){
+            assertEquals(names.get(v), dg.vertex(v).task);
+            assertEquals(v, dg.idOf(names.get(v)));
+            assertEquals(v, dg.vertex(v).index);
+        }
+        List<String> actual = new ArrayList<>();
+        for(int v = 0; v<dg.numVertices; v++){
+            for(int i = 0; i<dg.outDegree(v); i++){
+                actual.add(names.get(v) + ">" + names.get(dg.neighbor(v, i)));
+            }
+        }
+        actual.sort(null);
+        List<String> expected = new ArrayList<>(edges);
+        expected.sort(null);
+        assertEquals(expected, actual);
+        if(unique){ //the set of edges has to follow the ids too
+            Set<String> distinct = new HashSet<>(edges);
+            for(String edge : distinct){
+                String[] ends = edge.split(">");
+                assertTrue(dg.hasEdge(ends[0], ends[1]), edge);
+            }
+            assertEquals(distinct.size(), dg.countEdges());
+        }
+    }
+}
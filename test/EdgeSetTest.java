@@ -0,0 +1,82 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+/**
+ * The EdgeSetTest class checks the set of packed edges against a set of boxed keys, and that a directed graph rejecting
+ * duplicate edges keeps one copy of each edge and answers adjacency queries from the set.
+ */
+public class EdgeSetTest
+{
+    /**
+     * The matchesHashSet method adds, finds, and removes random edges, including ones past the first ids and negative
+     * ones, through enough growth and removal that runs of the table wrap around, and compares every answer with a
+     * HashSet.
+     */
+    @Test
+    public void matchesHashSet(){
+        Random random = new Random(9);
+        EdgeSet set = new EdgeSet(4);
+        Set<Long> expected = new HashSet<>();
+        for(int step = 0; step<200000; step++){
+            int start = random.nextInt(300)-(step%7 == 0 ? 150 : 0);
+            int end = step%11 == 0 ? Integer.MAX_VALUE-random.nextInt(3) : random.nextInt(300);
+            Long key = ((long)start << 32) | (end & 0xffffffffL);
+            int op = random.nextInt(3);
+            if(op == 0){
+                assertEquals(expected.add(key), set.add(start, end), "add at step " + step);
+            }
+            else if(op == 1){
+                assertEquals(expected.remove(key), set.remove(start, end), "remove at step " + step);
+            }
+            else{
+                assertEquals(expected.contains(key), set.contains(start, end), "contains at step " + step);
+            }
+            assertEquals(expected.size(), set.size());
+        }
+    }
+
+    /**
+     * The duplicatesAreRejected method checks that copies already in a graph are dropped when it starts rejecting them,
+     * that adding an edge again does nothing from then on, and that adjacency is answered correctly either way.
+     */
+    @Test
+    public void duplicatesAreRejected(){
+        DirectedGraph dg = new DirectedGraph();
+        for(String task : new String[]{"a", "b", "c"}){
+            dg.addVertex(task);
+        }
+        dg.addEdge("a", "b");
+        dg.addEdge("a", "c");
+        dg.addEdge("a", "b");
+        assertEquals(3, dg.countEdges());
+        dg.rejectDuplicateEdges();
+        assertEquals(2, dg.countEdges());
+        assertEquals(2, dg.outDegree(dg.idOf("a")));
+        assertEquals(dg.idOf("b"), dg.neighbor(dg.idOf("a"), 0)); //the first copy keeps its place
+        assertEquals(dg.idOf("c"), dg.neighbor(dg.idOf("a"), 1));
+
+        dg.addEdge("a", "b");
+        dg.addEdges(new String[]{"b", "b"}, new String[]{"c", "c"}, 2);
+        assertEquals(3, dg.countEdges());
+        assertTrue(dg.hasEdge("a", "b"));
+        assertTrue(dg.hasEdge("b", "c"));
+        assertFalse(dg.hasEdge("c", "a"));
+        assertFalse(dg.hasEdge("a", "missing"));
+        assertNotNull(dg.vertex(dg.idOf("a")).sharedEdge(dg.vertex(dg.idOf("b"))));
+        assertNull(dg.vertex(dg.idOf("b")).sharedEdge(dg.vertex(dg.idOf("a"))));
+
+        assertTrue(dg.removeEdge("a", "b"));
+        assertFalse(dg.removeEdge("a", "b"));
+        assertFalse(dg.hasEdge("a", "b"));
+        dg.addEdge("a", "b"); //can be added again once removed
+        assertTrue(dg.hasEdge("a", "b"));
+        assertEquals(3, dg.countEdges());
+    }
+}
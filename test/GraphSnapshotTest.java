@@ -0,0 +1,158 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+/**
+ * The GraphSnapshotTest class checks that a graph saved as a snapshot opens again with the same tasks, edges, kernels,
+ * and durations, that its names are read from the mapping until the graph changes, and that truncated or corrupt
+ * snapshots are reported when they are opened.
+ */
+public class GraphSnapshotTest
+{
+    @TempDir
+    Path dir;
+
+    /**
+     * The roundTripKeepsEverything method saves random graphs with their kernels and durations and checks that every
+     * name, edge, kernel, and duration comes back, and that every task can be found by name.
+     */
+    @Test
+    public void roundTripKeepsEverything() throws IOException{
+        Random random = new Random(4);
+        for(int t = 0; t<30; t++){
+            int n = 1+random.nextInt(t<20 ? 30 : 5000);
+            DirectedGraph dg = new DirectedGraph();
+            for(int v = 0; v<n; v++){
+                dg.addVertex(v%3 == 0 ? "tâche " + v : "t" + v);
+            }
+            for(int e = 0; e<2*n; e++){
+                dg.addEdge(dg.vertex(random.nextInt(n)).task, dg.vertex(random.nextInt(n)).task);
+            }
+            if(t%2 == 0){
+                dg.setDuration(random.nextInt(n), 2.5);
+            }
+            File file = dir.resolve("graph" + t + ".snap").toFile();
+            GraphSnapshot.write(dg, DirectedGraph.SortMode.TARJAN, file);
+            DirectedGraph.Kernel[] expected = dg.sort();
+
+            GraphSnapshot snapshot = GraphSnapshot.open(file);
+            CompactGraph g = snapshot.graph();
+            DirectedGraph opened = new DirectedGraph(g);
+            String where = "graph " + t;
+            assertEquals(n, g.numVertices, where);
+            assertEquals(dg.numEdges, g.numEdges, where);
+            for(int v = 0; v<n; v++){
+                assertEquals(dg.vertex(v).task, g.name(v), where);
+                assertEquals(v, opened.idOf(dg.vertex(v).task), where);
+                assertEquals(dg.outDegree(v), g.outDegree(v), where);
+                for(int i = 0; i<g.outDegree(v); i++){
+                    assertEquals(dg.neighbor(v, i), g.target(g.begin(v)+i), where);
+                }
+            }
+            assertEquals(-1, opened.idOf("missing"), where);
+            assertTrue(snapshot.hasKernels(DirectedGraph.SortMode.TARJAN), where);
+            assertFalse(snapshot.hasKernels(DirectedGraph.SortMode.LEVELS), where);
+            assertEquals(dg.foundCycle(), snapshot.foundCycle(), where);
+            DirectedGraph.Kernel[] k = snapshot.kernels(opened);
+            assertEquals(expected.length, k.length, where);
+            for(int i = 0; i<k.length; i++){
+                assertEquals(expected[i].toString(), k[i].toString(), where);
+            }
+            assertEquals(t%2 == 0, snapshot.hasDurations(), where);
+            snapshot.applyDurations(opened);
+            for(int v = 0; v<n; v++){
+                assertEquals(dg.getDuration(v), opened.getDuration(v), where);
+            }
+        }
+    }
+
+    /**
+     * The namesStayMappedUntilChanged method checks that a graph opened from a snapshot reads its names from the mapping,
+     * and the graphs made from it do too, until the graph changes, when the names are copied out first.
+     */
+    @Test
+    public void namesStayMappedUntilChanged() throws IOException{
+        DirectedGraph dg = new DirectedGraph();
+        dg.addVertex("a");
+        dg.addVertex("b");
+        dg.addEdge("a", "b");
+        File file = dir.resolve("small.snap").toFile();
+        GraphSnapshot.write(dg, null, file);
+        GraphSnapshot snapshot = GraphSnapshot.open(file);
+        assertNull(snapshot.kernels(new DirectedGraph(snapshot.graph())));
+
+        DirectedGraph opened = new DirectedGraph(snapshot.graph());
+        assertTrue(opened.tasks.readOnly());
+        assertTrue(opened.reverseGraph().tasks.readOnly());
+        assertTrue(opened.transitiveReduction().tasks.readOnly());
+        opened.addVertex("c");
+        opened.addEdge("b", "c");
+        assertFalse(opened.tasks.readOnly());
+        assertEquals(2, opened.idOf("c"));
+        assertEquals(1, opened.idOf("b"));
+        assertEquals(2, snapshot.graph().numVertices);
+        assertTrue(opened.removeVertex("a"));
+        assertEquals("c", opened.vertex(0).task);
+        assertEquals("a", snapshot.graph().name(0)); //the mapping is left alone
+    }
+
+    /**
+     * The badFilesAreRejected method checks that truncated snapshots, ones with an edge out of range or a negative
+     * size, and ones from another version fail to open with an IOException.
+     */
+    @Test
+    public void badFilesAreRejected() throws IOException{
+        DirectedGraph dg = new DirectedGraph();
+        dg.addVertex("a");
+        dg.addVertex("b");
+        dg.addEdge("a", "b");
+        File file = dir.resolve("bad.snap").toFile();
+
+        GraphSnapshot.write(dg, null, file);
+        try(RandomAccessFile f = new RandomAccessFile(file, "rw")){
+            f.setLength(f.length()-4);
+        }
+        assertThrows(IOException.class, () -> GraphSnapshot.open(file));
+
+        GraphSnapshot.write(dg, null, file);
+        try(RandomAccessFile f = new RandomAccessFile(file, "rw")){ //the last edge target ends the file
+            f.seek(f.length()-4);
+            f.write(new byte[]{7, 0, 0, 0});
+        }
+        assertThrows(IOException.class, () -> GraphSnapshot.open(file));
+
+        GraphSnapshot.write(dg, null, file);
+        try(RandomAccessFile f = new RandomAccessFile(file, "rw")){ //the number of edges
+            f.seek(12);
+            f.write(new byte[]{-1, -1, -1, -1});
+        }
+        assertThrows(IOException.class, () -> GraphSnapshot.open(file));
+
+        GraphSnapshot.write(dg, null, file);
+        try(RandomAccessFile f = new RandomAccessFile(file, "rw")){ //the version
+            f.seek(4);
+            f.write(new byte[]{1, 0, 0, 0});
+        }
+        assertThrows(IOException.class, () -> GraphSnapshot.open(file));
+    }
+
+    /**
+     * The unnamedTasksAreRefused method checks that a graph with an unnamed task can't be saved.
+     */
+    @Test
+    public void unnamedTasksAreRefused(){
+        CompactGraph g = new CompactGraph(new String[2], new int[]{0, 1, 1}, new int[]{1});
+        File file = dir.resolve("unnamed.snap").toFile();
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.write(new DirectedGraph(g), null, file));
+        assertFalse(file.exists());
+    }
+}
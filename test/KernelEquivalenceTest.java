@@ -0,0 +1,274 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+/**
+ * The KernelEquivalenceTest class checks on random graphs that every way of finding kernels agrees with Tarjan's
+ * algorithm: the kernels kept up to date by DynamicKernels as edges and vertices come and go, the parallel
+ * forward-backward split, and Tarjan's algorithm over edges spilled to disk. It also checks the reachability index and
+ * the transitive reduction against the reachability worked out by searching from every vertex.
+ */
+public class KernelEquivalenceTest
+{
+    @TempDir
+    Path dir;
+
+    /**
+     * The incrementalMatchesTarjan method adds and removes random edges and vertices on graphs tracking their kernels,
+     * and after every change compares the incremental kernels with Tarjan's and the parallel algorithm's.
+     */
+    @Test
+    public void incrementalMatchesTarjan(){
+        Random random = new Random(11);
+        for(int t = 0; t<500; t++){
+            DirectedGraph dg = new DirectedGraph();
+            List<String> names = new ArrayList<>();
+            List<String[]> edges = new ArrayList<>();
+            int n = 1+random.nextInt(25);
+            int before = random.nextInt(n+1); //some vertices and edges before tracking starts
+            for(int i = 0; i<before; i++){
+                names.add("v" + i);
+                dg.addVertex("v" + i);
+            }
+            for(int i = 0; i<before; i++){
+                addRandomEdge(dg, names, edges, random);
+            }
+            dg.trackKernels();
+            int next = before;
+            for(int step = 0; step<60; step++){
+                int op = random.nextInt(10);
+                if(op == 0 || names.isEmpty()){
+                    names.add("v" + next);
+                    dg.addVertex("v" + next++);
+                }
+                else if(op<6){
+                    addRandomEdge(dg, names, edges, random);
+                }
+                else if(op<9 && !edges.isEmpty()){
+                    String[] e = edges.remove(random.nextInt(edges.size()));
+                    assertTrue(dg.removeEdge(e[0], e[1]));
+                }
+                else if(op == 9){
+                    String v = names.remove(random.nextInt(names.size()));
+                    assertTrue(dg.removeVertex(v));
+                    edges.removeIf(e -> e[0].equals(v) || e[1].equals(v));
+                }
+                String where = "graph " + t + ", step " + step;
+                assertEquals(names.size(), dg.countVertices(), where);
+                assertEquals(edges.size(), dg.countEdges(), where);
+                int[] tarjan = kernelOf(dg, dg.sort(DirectedGraph.SortMode.TARJAN), names);
+                boolean cyclic = dg.foundCycle();
+                int[] incremental = kernelOf(dg, dg.sort(DirectedGraph.SortMode.INCREMENTAL), names);
+                assertEquals(cyclic, dg.foundCycle(), where);
+                assertSamePartition(tarjan, incremental, where);
+                assertInOrder(incremental, edges, names, where);
+                int[] parallel = kernelOf(dg, dg.sort(DirectedGraph.SortMode.PARALLEL), names);
+                assertEquals(cyclic, dg.foundCycle(), where);
+                assertSamePartition(tarjan, parallel, where);
+                assertInOrder(parallel, edges, names, where);
+            }
+        }
+    }
+
+    /**
+     * The externalMatchesTarjan method writes random task files and checks that Tarjan's algorithm over the edges
+     * spilled to disk with a tiny budget finds the same kernels as Tarjan's algorithm in memory.
+     */
+    @Test
+    public void externalMatchesTarjan() throws IOException{
+        Random random = new Random(5);
+        for(int t = 0; t<40; t++){
+            int n = 1+random.nextInt(t<20 ? 50 : 3000);
+            CompactGraph g = randomGraph(n, random.nextInt(4), random.nextBoolean(), random);
+            File file = dir.resolve("graph" + t + ".txt").toFile();
+            SyntheticGraphs.writeTaskFile(g, file);
+            DirectedGraph memory = TaskFileLoader.load(file);
+            DirectedGraph external = TaskFileLoader.loadExternal(file, 4096, dir.toFile());
+            List<String> names = new ArrayList<>();
+            for(int v = 0; v<n; v++){
+                names.add("t" + v);
+            }
+            String where = "graph " + t;
+            int[] expected = kernelOf(memory, memory.sort(DirectedGraph.SortMode.TARJAN), names);
+            int[] actual = kernelOf(external, external.sort(DirectedGraph.SortMode.EXTERNAL), names);
+            assertEquals(memory.foundCycle(), external.foundCycle(), where);
+            assertSamePartition(expected, actual, where);
+        }
+    }
+
+    /**
+     * The reachabilityMatchesSearch method checks every query of the reachability index on random graphs, with and
+     * without cycles, against searching the graph.
+     */
+    @Test
+    public void reachabilityMatchesSearch(){
+        Random random = new Random(7);
+        for(int t = 0; t<1000; t++){
+            CompactGraph g = randomGraph(1+random.nextInt(40), random.nextInt(4), random.nextBoolean(), random);
+            boolean[][] reach = closure(g);
+            Reachability index = new Reachability(g);
+            for(int x = 0; x<g.numVertices; x++){
+                int descendants = 0;
+                int ancestors = 0;
+                for(int y = 0; y<g.numVertices; y++){
+                    assertEquals(x == y || reach[x][y], index.reaches(x, y), "graph " + t + ", " + x + " to " + y);
+                    descendants += x != y && reach[x][y] ? 1 : 0;
+                    ancestors += x != y && reach[y][x] ? 1 : 0;
+                }
+                assertEquals(descendants, index.descendants(x).length, "graph " + t);
+                assertEquals(ancestors, index.ancestors(x).length, "graph " + t);
+            }
+        }
+    }
+
+    /**
+     * The reductionKeepsReachability method checks that the transitive reduction of random graphs reaches exactly what
+     * the graph did, and that on acyclic graphs no edge it kept can be dropped without losing some of that.
+     */
+    @Test
+    public void reductionKeepsReachability(){
+        Random random = new Random(5);
+        for(int t = 0; t<1000; t++){
+            boolean dag = random.nextBoolean();
+            CompactGraph g = randomGraph(1+random.nextInt(t<700 ? 12 : 300), random.nextInt(5), dag, random);
+            CompactGraph h = new TransitiveReduction(g).graph();
+            boolean[][] reach = closure(g);
+            assertTrue(Arrays.deepEquals(reach, closure(h)), "graph " + t);
+            if(dag && g.numVertices<=12){
+                for(int e = 0; e<h.numEdges; e++){
+                    assertTrue(!Arrays.deepEquals(reach, closure(withoutEdge(h, e))), "graph " + t + " keeps edge " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The addRandomEdge method adds an edge between two random vertices, which may be the same one.
+     */
+    private static void addRandomEdge(DirectedGraph dg, List<String> names, List<String[]> edges, Random random){
+        if(names.isEmpty()){
+            return;
+        }
+        String x = names.get(random.nextInt(names.size()));
+        String y = names.get(random.nextInt(names.size()));
+        dg.addEdge(x, y);
+        edges.add(new String[]{x, y});
+    }
+
+    /**
+     * The kernelOf method returns the position of the kernel holding each of the named vertices, in the order they were
+     * named, checking that every vertex is in exactly one kernel.
+     */
+    private static int[] kernelOf(DirectedGraph dg, DirectedGraph.Kernel[] k, List<String> names){
+        Map<String,Integer> position = new HashMap<>();
+        for(int i = 0; i<k.length; i++){
+            for(DirectedGraph.Vertex v : k[i].verts){
+                assertEquals(null, position.put(v.task, i), v.task + " is in two kernels");
+            }
+        }
+        assertEquals(names.size(), position.size());
+        int[] kernel = new int[names.size()];
+        for(int i = 0; i<kernel.length; i++){
+            kernel[i] = position.get(names.get(i));
+        }
+        return kernel;
+    }
+
+    /**
+     * The assertSamePartition method checks that two numberings of the kernels put the same vertices together.
+     */
+    private static void assertSamePartition(int[] expected, int[] actual, String where){
+        int[] seen = new int[expected.length]; //the actual kernel matching each expected one, plus one
+        int[] claimed = new int[actual.length+1];
+        for(int v = 0; v<expected.length; v++){
+            if(seen[expected[v]] == 0 && claimed[actual[v]] == 0){
+                seen[expected[v]] = actual[v]+1;
+                claimed[actual[v]] = expected[v]+1;
+            }
+            assertEquals(seen[expected[v]], actual[v]+1, where + ": vertex " + v);
+            assertEquals(claimed[actual[v]], expected[v]+1, where + ": vertex " + v);
+        }
+    }
+
+    /**
+     * The assertInOrder method checks that every edge leads from a kernel to itself or to a later one.
+     */
+    private static void assertInOrder(int[] kernel, List<String[]> edges, List<String> names, String where){
+        for(String[] e : edges){
+            assertTrue(kernel[names.indexOf(e[0])]<=kernel[names.indexOf(e[1])], where + ": " + e[0] + " to " + e[1]);
+        }
+    }
+
+    /**
+     * The randomGraph method builds a graph with up to the given number of edges leaving each vertex, led only to later
+     * vertices if it has to be acyclic.
+     */
+    private static CompactGraph randomGraph(int n, int degree, boolean dag, Random random){
+        int[] offsets = new int[n+1];
+        int[] targets = new int[n*degree];
+        int m = 0;
+        for(int v = 0; v<n; v++){
+            int d = random.nextInt(degree+1);
+            for(int i = 0; i<d; i++){
+                int w = random.nextInt(n);
+                if(!dag || w>v){
+                    targets[m++] = w;
+                }
+            }
+            offsets[v+1] = m;
+        }
+        return new CompactGraph(new String[n], offsets, Arrays.copyOf(targets, m));
+    }
+
+    /**
+     * The closure method works out which vertices each vertex reaches by one or more edges, searching from each.
+     */
+    private static boolean[][] closure(CompactGraph g){
+        int n = g.numVertices;
+        boolean[][] reach = new boolean[n][n];
+        int[] queue = new int[n+1]; //the start is queued again if it reaches itself
+        for(int s = 0; s<n; s++){
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = s;
+            while(head<tail){
+                int v = queue[head++];
+                for(int e = g.begin(v); e<g.end(v); e++){
+                    if(!reach[s][g.target(e)]){
+                        reach[s][g.target(e)] = true;
+                        queue[tail++] = g.target(e);
+                    }
+                }
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * The withoutEdge method copies a graph without one of its edges.
+     */
+    private static CompactGraph withoutEdge(CompactGraph g, int edge){
+        int[] offsets = new int[g.numVertices+1];
+        int[] targets = new int[g.numEdges-1];
+        int m = 0;
+        for(int v = 0; v<g.numVertices; v++){
+            for(int e = g.begin(v); e<g.end(v); e++){
+                if(e != edge){
+                    targets[m++] = g.target(e);
+                }
+            }
+            offsets[v+1] = m;
+        }
+        return new CompactGraph(new String[g.numVertices], offsets, targets);
+    }
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+/**
+ * The LevelSortTest class checks the parallel Kahn level sort on random acyclic graphs, including levels wide enough to
+ * be split across the fork/join pool, against the levels worked out one vertex at a time.
+ */
+public class LevelSortTest
+{
+    /**
+     * The levelsFollowLongestPaths method checks that every vertex is in exactly one level, that each level is listed in
+     * increasing order, and that a vertex is one level past its latest prerequisite, or in level zero without any.
+     */
+    @Test
+    public void levelsFollowLongestPaths(){
+        Random random = new Random(3);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try{
+            for(int t = 0; t<60; t++){
+                int n = 1+random.nextInt(t<40 ? 200 : 20000); //the larger graphs have levels past the threshold
+                CompactGraph g = randomDag(n, random.nextInt(4), random);
+                int[][] levels = new LevelSort(g, pool).levels();
+                int[] level = new int[n];
+                Arrays.fill(level, -1);
+                for(int i = 0; i<levels.length; i++){
+                    for(int k = 0; k<levels[i].length; k++){
+                        assertEquals(-1, level[levels[i][k]], "graph " + t + ": vertex in two levels");
+                        level[levels[i][k]] = i;
+                        assertTrue(k == 0 || levels[i][k-1]<levels[i][k], "graph " + t + ": level " + i + " out of order");
+                    }
+                }
+                int[] expected = new int[n]; //the vertices are numbered so every edge leads to a later one
+                for(int v = 0; v<n; v++){
+                    for(int e = g.begin(v); e<g.end(v); e++){
+                        expected[g.target(e)] = Math.max(expected[g.target(e)], expected[v]+1);
+                    }
+                }
+                assertTrue(Arrays.equals(expected, level), "graph " + t);
+            }
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The cycleHasNoLevels method checks that a graph with a cycle has no levels, and that sorting it by levels falls
+     * back to its kernels.
+     */
+    @Test
+    public void cycleHasNoLevels(){
+        DirectedGraph dg = new DirectedGraph();
+        for(String task : new String[]{"a", "b", "c", "d"}){
+            dg.addVertex(task);
+        }
+        dg.addEdge("a", "b");
+        dg.addEdge("b", "c");
+        dg.addEdge("c", "b");
+        dg.addEdge("c", "d");
+        assertNull(new LevelSort(dg.compact(), ForkJoinPool.commonPool()).levels());
+        DirectedGraph.Kernel[] k = dg.sort(DirectedGraph.SortMode.LEVELS);
+        assertTrue(dg.foundCycle());
+        assertEquals(3, k.length);
+        assertEquals("a", k[0].toString());
+        assertEquals(2, k[1].numVerts);
+        assertEquals("d", k[2].toString());
+    }
+
+    /**
+     * The randomDag method builds a graph whose edges only lead to later vertices, with up to the given number of edges
+     * leaving each vertex.
+     */
+    private static CompactGraph randomDag(int n, int degree, Random random){
+        int[] offsets = new int[n+1];
+        int[] targets = new int[n*degree];
+        int m = 0;
+        for(int v = 0; v<n; v++){
+            int d = random.nextInt(degree+1);
+            for(int i = 0; i<d && v+1<n; i++){
+                targets[m++] = v+1+random.nextInt(n-v-1);
+            }
+            offsets[v+1] = m;
+        }
+        return new CompactGraph(new String[n], offsets, Arrays.copyOf(targets, m));
+    }
+}
@@ -0,0 +1,132 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+/**
+ * The ResultCacheTest class checks that the result cache misses until a result is stored, hits with the stored bytes
+ * afterwards, keys results by both the file's contents and the options, evicts the least recently used entries once it
+ * is over its limit, and counts hits and misses across caches sharing a directory.
+ */
+public class ResultCacheTest
+{
+    @TempDir
+    Path dir;
+
+    /**
+     * The missThenHit method checks that a key has no entry until one is stored, and then streams back what was stored.
+     */
+    @Test
+    public void missThenHit() throws IOException{
+        ResultCache cache = new ResultCache(dir.resolve("cache").toFile(), 1<<20);
+        File input = write("input.txt", "a b\nb c\n");
+        String key = cache.key(input, "tarjan text");
+        assertNull(cache.open(key));
+        cache.store(key, entry(cache, "1: c\n2: b\n3: a\n"));
+        try(FileChannel stored = cache.open(key)){
+            assertNotNull(stored);
+            assertEquals("1: c\n2: b\n3: a\n", read(stored));
+        }
+    }
+
+    /**
+     * The keysFollowContentsAndOptions method checks that the key changes with any byte of the file, including the last
+     * few past a multiple of eight, with the length of the file, and with the options, and that it doesn't change
+     * otherwise.
+     */
+    @Test
+    public void keysFollowContentsAndOptions() throws IOException{
+        ResultCache cache = new ResultCache(dir.resolve("cache").toFile(), 1<<20);
+        String text = "task one\nprerequisite\n"; //not a multiple of eight bytes
+        String key = cache.key(write("a.txt", text), "tarjan text");
+        assertEquals(key, cache.key(write("b.txt", text), "tarjan text"));
+        assertEquals(32, key.length());
+        assertNotEquals(key, cache.key(write("c.txt", text), "tarjan json"));
+        assertNotEquals(key, cache.key(write("d.txt", text.replace('e', 'f')), "tarjan text"));
+        assertNotEquals(key, cache.key(write("e.txt", text.substring(0, text.length()-1) + "!"), "tarjan text"));
+        assertNotEquals(key, cache.key(write("f.txt", text + "\0"), "tarjan text"));
+    }
+
+    /**
+     * The leastRecentlyUsedIsEvicted method fills a small cache and checks that storing one more entry deletes the entry
+     * used longest ago, keeping one that was read since, and that a result bigger than the whole limit isn't kept.
+     */
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws IOException{
+        ResultCache cache = new ResultCache(dir.resolve("cache").toFile(), 250);
+        String result = "x".repeat(100);
+        cache.store("old", entry(cache, result));
+        cache.store("used", entry(cache, result));
+        File cacheDir = dir.resolve("cache").toFile();
+        new File(cacheDir, "old.out").setLastModified(1_000_000_000L);
+        new File(cacheDir, "used.out").setLastModified(2_000_000_000L);
+        cache.open("used").close(); //marks it as just used
+        new File(cacheDir, "old.out").setLastModified(1_000_000_000L);
+
+        cache.store("new", entry(cache, result));
+        assertNull(cache.open("old"));
+        try(FileChannel used = cache.open("used"); FileChannel added = cache.open("new")){
+            assertNotNull(used);
+            assertNotNull(added);
+        }
+
+        cache.store("huge", entry(cache, "y".repeat(300)));
+        assertNull(cache.open("huge"));
+        String[] left = cacheDir.list((d, name) -> name.endsWith(".tmp"));
+        assertEquals(0, left.length);
+    }
+
+    /**
+     * The countsAreShared method checks that hits and misses recorded by two caches on the same directory add up.
+     */
+    @Test
+    public void countsAreShared() throws IOException{
+        File cacheDir = dir.resolve("cache").toFile();
+        ResultCache first = new ResultCache(cacheDir, 1<<20);
+        ResultCache second = new ResultCache(cacheDir, 1<<20);
+        first.record(false);
+        second.record(true);
+        first.record(true);
+        assertEquals("cache: 2 hits, 1 misses, 66.7% hit rate", first.stats());
+        assertFalse(second.stats().equals(first.stats())); //as of its own last record
+        second.record(true);
+        assertTrue(second.stats().startsWith("cache: 3 hits, 1 misses"));
+    }
+
+    /**
+     * The write method writes some text to a file in the test directory.
+     */
+    private File write(String name, String text) throws IOException{
+        return Files.writeString(dir.resolve(name), text).toFile();
+    }
+
+    /**
+     * The entry method writes a result into a new entry of the cache, ready to store.
+     */
+    private static File entry(ResultCache cache, String text) throws IOException{
+        File entry = cache.newEntry();
+        Files.writeString(entry.toPath(), text);
+        return entry;
+    }
+
+    /**
+     * The read method reads a stored result through the cache's copy method.
+     */
+    private static String read(FileChannel stored) throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ResultCache.copy(stored, Channels.newChannel(bytes));
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,122 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+/**
+ * The ResultWriterTest class checks each output format of the result writer on a small graph whose task names need
+ * escaping in JSON, and that the stream writer encodes them as UTF-8.
+ */
+public class ResultWriterTest
+{
+    private static final String QUOTE = "say \"hi\""; //task names that JSON has to escape
+    private static final String SLASH = "a\\b";
+    private static final String CONTROL = "bell\u0007\nend";
+    private static final String ACCENT = "café 😀"; //written as it is, since JSON allows it
+
+    /**
+     * The textMatchesKernelStrings method checks that the text format is the numbered list of each kernel's toString.
+     */
+    @Test
+    public void textMatchesKernelStrings() throws IOException{
+        DirectedGraph dg = graph();
+        DirectedGraph.Kernel[] k = dg.sort();
+        StringBuilder expected = new StringBuilder("The file \"f.txt\" contains  mutually dependent tasks. You must:\n");
+        for(int i = 0; i<k.length; i++){
+            expected.append(i+1).append(": ").append(k[i]).append('\n');
+        }
+        expected.append("Thanks!\n");
+        assertEquals(expected.toString(), write(dg, k, ResultWriter.Format.TEXT));
+    }
+
+    /**
+     * The tsvSeparatesTasksWithTabs method checks that each kernel is a line of its number and its tasks.
+     */
+    @Test
+    public void tsvSeparatesTasksWithTabs() throws IOException{
+        DirectedGraph dg = graph();
+        DirectedGraph.Kernel[] k = dg.sort();
+        StringBuilder expected = new StringBuilder();
+        for(int i = 0; i<k.length; i++){
+            expected.append(i+1);
+            for(DirectedGraph.Vertex v : k[i].verts){
+                expected.append('\t').append(v.task);
+            }
+            expected.append('\n');
+        }
+        assertEquals(expected.toString(), write(dg, k, ResultWriter.Format.TSV));
+    }
+
+    /**
+     * The jsonEscapesNames method checks that quotes, backslashes, and control characters are escaped, and that other
+     * characters, including ones outside the basic plane, are written as they are.
+     */
+    @Test
+    public void jsonEscapesNames() throws IOException{
+        DirectedGraph dg = graph();
+        DirectedGraph.Kernel[] k = dg.sort();
+        String[] lines = write(dg, k, ResultWriter.Format.JSON).split("\n");
+        assertEquals("{\"file\":\"f.txt\",\"cyclic\":true,\"kernels\":" + k.length + "}", lines[0]);
+        assertEquals(k.length+1, lines.length);
+        StringBuilder all = new StringBuilder();
+        for(int i = 1; i<lines.length; i++){
+            all.append(lines[i]).append('\n');
+        }
+        String json = all.toString();
+        assertContains(json, "\"say \\\"hi\\\"\"");
+        assertContains(json, "\"a\\\\b\"");
+        assertContains(json, "\"bell\\u0007\\u000aend\"");
+        assertContains(json, "\"" + ACCENT + "\"");
+        assertEquals(-1, json.indexOf('\u0007'));
+    }
+
+    /**
+     * The streamIsUtf8 method checks that the stream writer encodes names as UTF-8 and writes everything by the time
+     * write returns.
+     */
+    @Test
+    public void streamIsUtf8() throws IOException{
+        DirectedGraph dg = new DirectedGraph();
+        dg.addVertex(ACCENT);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ResultWriter out = ResultWriter.to(bytes, ResultWriter.Format.TSV);
+        out.write("f.txt", false, dg.sort());
+        assertEquals("1\t" + ACCENT + "\n", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        out.close();
+    }
+
+    /**
+     * The graph method builds a graph of the awkward names, with a cycle between two of them.
+     */
+    private static DirectedGraph graph(){
+        DirectedGraph dg = new DirectedGraph();
+        for(String task : new String[]{QUOTE, SLASH, CONTROL, ACCENT}){
+            dg.addVertex(task);
+        }
+        dg.addEdge(QUOTE, SLASH);
+        dg.addEdge(SLASH, CONTROL);
+        dg.addEdge(CONTROL, SLASH);
+        dg.addEdge(CONTROL, ACCENT);
+        return dg;
+    }
+
+    /**
+     * The write method writes the kernels of a graph in a format to a string.
+     */
+    private static String write(DirectedGraph dg, DirectedGraph.Kernel[] k, ResultWriter.Format format)
+            throws IOException{
+        StringWriter s = new StringWriter();
+        new ResultWriter(s, format).write("f.txt", dg.foundCycle(), k);
+        return s.toString();
+    }
+
+    /**
+     * The assertContains method checks that some text holds a piece of text.
+     */
+    private static void assertContains(String text, String piece){
+        assertTrue(text.contains(piece), "missing " + piece + " in " + text);
+    }
+}
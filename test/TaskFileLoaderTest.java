@@ -0,0 +1,179 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+/**
+ * The TaskFileLoaderTest class checks which fields of a task file are read as durations and which as task names, and
+ * that reading a file in shards gives the same graph as reading it in one pass.
+ */
+public class TaskFileLoaderTest
+{
+    @TempDir
+    Path dir;
+
+    /**
+     * The decimalsAreDurations method checks that plain decimal numbers after an @ are read as durations, in either case
+     * of exponent, and that the prerequisites after them are still read.
+     */
+    @Test
+    public void decimalsAreDurations() throws IOException{
+        String[] times = {"5", "2.5", "1e3", "1E2", ".5", "7.", "0", "2.5e-1", "3e+1", "007"};
+        double[] expected = {5, 2.5, 1000, 100, 0.5, 7, 0, 0.25, 30, 7};
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i<times.length; i++){
+            text.append("t").append(i).append("\t@").append(times[i]).append("\tfirst\n");
+        }
+        DirectedGraph dg = TaskFileLoader.load(write(text.toString()));
+        assertEquals(times.length+1, dg.numVertices);
+        for(int i = 0; i<times.length; i++){
+            int v = dg.idOf("t" + i);
+            assertEquals(expected[i], dg.getDuration(v), "@" + times[i]);
+            assertTrue(dg.hasEdge("first", "t" + i), "@" + times[i]);
+        }
+        assertEquals(times.length, dg.countEdges());
+    }
+
+    /**
+     * The otherFieldsAreNames method checks that fields after an @ that Double.parseDouble would take, but that aren't
+     * plain decimal numbers, and ones that aren't a duration a task could take, are read as prerequisites instead.
+     */
+    @Test
+    public void otherFieldsAreNames() throws IOException{
+        String[] fields = {"@5d", "@5f", "@0x1p3", "@-1", "@+5", "@nan", "@infinity", "@ 5", "@5 ", "@1e999", "@.", "@1e",
+            "@1e+", "@", "@1.2.3", "@home"};
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i<fields.length; i++){
+            text.append("t").append(i).append('\t').append(fields[i]).append('\n');
+        }
+        DirectedGraph dg = TaskFileLoader.load(write(text.toString()));
+        assertFalse(dg.hasDurations());
+        for(int i = 0; i<fields.length; i++){
+            int name = dg.idOf(fields[i]);
+            assertTrue(name >= 0, fields[i]);
+            assertTrue(dg.hasEdge(fields[i], "t" + i), fields[i]);
+        }
+    }
+
+    /**
+     * The firstFieldIsATask method checks that an @ number that starts a line is a task, not a duration.
+     */
+    @Test
+    public void firstFieldIsATask() throws IOException{
+        DirectedGraph dg = TaskFileLoader.load(write("@5\t@2\n"));
+        assertEquals(1, dg.numVertices);
+        assertEquals(2, dg.getDuration(dg.idOf("@5")));
+    }
+
+    /**
+     * The shardsMatchOnePass method reads random files, with long and multi-byte names, durations, repeated edges, and a
+     * mix of line endings, in every number of shards from 2 to 40, so the splits fall inside names and characters and
+     * between the carriage return and the newline, and checks each graph against reading the file in one pass.
+     */
+    @Test
+    public void shardsMatchOnePass() throws IOException{
+        Random random = new Random(20);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try{
+            for(int t = 0; t<4; t++){
+                File file = write(randomFile(random, 30+t*40, t%2 == 0 ? "\r\n" : "\n", t == 3));
+                for(boolean unique : new boolean[]{false, true}){
+                    DirectedGraph expected = TaskFileLoader.load(file, unique);
+                    for(int shards = 2; shards<=40; shards++){
+                        DirectedGraph actual = TaskFileLoader.loadParallel(file, unique, pool, shards);
+                        assertSameGraph(expected, actual, "file " + t + (unique ? " unique" : "") + " in " + shards);
+                    }
+                    assertSameGraph(expected, TaskFileLoader.loadParallel(file, unique, pool), "file " + t);
+                }
+            }
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The smallFilesMatchOnePass method checks that files with fewer bytes than shards, including an empty file and one
+     * line without a newline, load the same in shards as in one pass.
+     */
+    @Test
+    public void smallFilesMatchOnePass() throws IOException{
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try{
+            for(String text : new String[]{"", "a", "a\tb", "a\r\n", "a\tb\r\nb\ta\r\n", "\n\n\n", "é\tb\n"}){
+                File file = write(text);
+                DirectedGraph expected = TaskFileLoader.load(file);
+                for(int shards = 2; shards<=16; shards++){
+                    assertSameGraph(expected, TaskFileLoader.loadParallel(file, false, pool, shards), text + " in " + shards);
+                }
+            }
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The randomFile method makes the text of a random task file with the given number of tasks. Some names are long
+     * and some have characters outside of ascii, and some lines have a duration.
+     */
+    private static String randomFile(Random random, int n, String newline, boolean lastLineEnds){
+        String[] names = new String[n];
+        for(int v = 0; v<n; v++){
+            names[v] = (v%5 == 0 ? "tâche numéro " : v%3 == 0 ? "a rather long task name to cross a split " : "t") + v;
+        }
+        StringBuilder text = new StringBuilder();
+        for(int line = 0; line<2*n; line++){
+            text.append(names[random.nextInt(n)]);
+            if(random.nextInt(4) == 0){
+                text.append("\t@").append(random.nextInt(10)).append('.').append(random.nextInt(10));
+            }
+            for(int e = random.nextInt(4); e>0; e--){
+                text.append('\t').append(names[random.nextInt(n)].toUpperCase());
+            }
+            if(lastLineEnds || line < 2*n-1){
+                text.append(newline);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * The assertSameGraph method checks that two graphs have the same tasks with the same ids and durations, the same
+     * edges in the same order, and the same kernels.
+     */
+    private static void assertSameGraph(DirectedGraph expected, DirectedGraph actual, String where){
+        assertEquals(expected.numVertices, actual.numVertices, where);
+        assertEquals(expected.countEdges(), actual.countEdges(), where);
+        for(int v = 0; v<expected.numVertices; v++){
+            assertEquals(expected.vertex(v).task, actual.vertex(v).task, where);
+            assertEquals(v, actual.idOf(expected.vertex(v).task), where);
+            assertEquals(expected.getDuration(v), actual.getDuration(v), where);
+            assertEquals(expected.outDegree(v), actual.outDegree(v), where);
+            for(int i = 0; i<expected.outDegree(v); i++){
+                assertEquals(expected.neighbor(v, i), actual.neighbor(v, i), where);
+            }
+        }
+        DirectedGraph.Kernel[] k = expected.sort();
+        DirectedGraph.Kernel[] l = actual.sort();
+        assertEquals(k.length, l.length, where);
+        for(int i = 0; i<k.length; i++){
+            assertEquals(k[i].toString(), l[i].toString(), where);
+        }
+    }
+
+    /**
+     * The write method writes the text of a task file to the test directory.
+     */
+    private File write(String text) throws IOException{
+        return Files.write(dir.resolve("tasks.txt"), text.getBytes(StandardCharsets.UTF_8)).toFile();
+    }
+}